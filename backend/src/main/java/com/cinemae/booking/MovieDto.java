@@ -1,8 +0,0 @@
-package com.cinemae.booking.api;
-
-public class MovieDto {
-    public Long id;
-    public String title;
-    public String synopsis;
-    public String mpaa_rating;
-}
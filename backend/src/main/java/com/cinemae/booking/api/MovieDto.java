@@ -0,0 +1,27 @@
+package com.cinemae.booking.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Catalog row as served by /api/movies. Serialized directly instead of going through a
+ * per-row column map; JSON names stay snake_case to match the table and the frontend.
+ */
+public record MovieDto(
+        long id,
+        String title,
+        @JsonProperty("mpaa_rating") String mpaaRating,
+        String synopsis,
+        @JsonProperty("trailer_video_url") String trailerVideoUrl,
+        @JsonProperty("trailer_image_url") String trailerImageUrl
+) {
+
+    // expects the columns of MovieCatalogService's catalog select
+    public static final RowMapper<MovieDto> ROW_MAPPER = (rs, rowNum) -> new MovieDto(
+            rs.getLong("id"),
+            rs.getString("title"),
+            rs.getString("mpaa_rating"),
+            rs.getString("synopsis"),
+            rs.getString("trailer_video_url"),
+            rs.getString("trailer_image_url"));
+}
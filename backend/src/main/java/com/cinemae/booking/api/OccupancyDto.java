@@ -0,0 +1,13 @@
+package com.cinemae.booking.api;
+
+/**
+ * Seat counts of one showtime; free = capacity - sold - held.
+ */
+public record OccupancyDto(
+        long showtimeId,
+        int capacity,
+        int sold,
+        int held,
+        int free
+) {
+}
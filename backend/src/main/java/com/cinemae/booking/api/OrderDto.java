@@ -0,0 +1,25 @@
+package com.cinemae.booking.api;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A booking with its tickets, as returned by /api/orders. orderId is the public booking
+ * number; amounts are in cents and total = subtotal - discount + fees + tax.
+ */
+public record OrderDto(
+        String orderId,
+        String status,
+        long userId,
+        long showtimeId,
+        List<Ticket> tickets,
+        long subtotalCents,
+        long discountCents,
+        long feesCents,
+        long taxCents,
+        long totalCents,
+        LocalDateTime createdAt
+) {
+
+    public record Ticket(String ticketNumber, long seatId, String row, int number, String ageCategory, long priceCents) {}
+}
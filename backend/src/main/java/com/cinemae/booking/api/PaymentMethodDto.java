@@ -0,0 +1,52 @@
+package com.cinemae.booking.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+
+/**
+ * Stored payment method. providerToken and last4 hold whatever the row holds (ciphertext);
+ * use {@link #withSecrets} to hand out the decrypted values.
+ */
+public record PaymentMethodDto(
+        long id,
+        String provider,
+        @JsonProperty("provider_token") String providerToken,
+        String brand,
+        String last4,
+        @JsonProperty("exp_month") Integer expMonth,
+        @JsonProperty("exp_year") Integer expYear,
+        @JsonProperty("is_default") Boolean isDefault,
+        @JsonProperty("billing_address") String billingAddress,
+        @JsonProperty("created_at") Timestamp createdAt,
+        // only selected (and sent) by the update endpoint
+        @JsonProperty("updated_at") @JsonInclude(JsonInclude.Include.NON_NULL) Timestamp updatedAt
+) {
+
+    public static final RowMapper<PaymentMethodDto> ROW_MAPPER = mapper(false);
+
+    // for selects that include updated_at
+    public static final RowMapper<PaymentMethodDto> ROW_MAPPER_WITH_UPDATED = mapper(true);
+
+    private static RowMapper<PaymentMethodDto> mapper(boolean withUpdated) {
+        return (rs, rowNum) -> new PaymentMethodDto(
+                rs.getLong("id"),
+                rs.getString("provider"),
+                rs.getString("provider_token"),
+                rs.getString("brand"),
+                rs.getString("last4"),
+                rs.getObject("exp_month", Integer.class),
+                rs.getObject("exp_year", Integer.class),
+                rs.getObject("is_default", Boolean.class),
+                rs.getString("billing_address"),
+                rs.getTimestamp("created_at"),
+                withUpdated ? rs.getTimestamp("updated_at") : null);
+    }
+
+    public PaymentMethodDto withSecrets(String providerToken, String last4) {
+        return new PaymentMethodDto(id, provider, providerToken, brand, last4, expMonth, expYear,
+                isDefault, billingAddress, createdAt, updatedAt);
+    }
+}
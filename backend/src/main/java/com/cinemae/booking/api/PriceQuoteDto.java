@@ -0,0 +1,20 @@
+package com.cinemae.booking.api;
+
+import java.util.List;
+
+/**
+ * Ticket prices for one showtime. The booking fee is charged per ticket and tax applies to
+ * subtotal plus fees; all amounts in cents.
+ */
+public record PriceQuoteDto(
+        long showtimeId,
+        long ruleId,
+        List<Line> lines,
+        long subtotalCents,
+        long feesCents,
+        long taxCents,
+        long totalCents
+) {
+
+    public record Line(String ageCategory, int quantity, long unitCents, long totalCents) {}
+}
@@ -0,0 +1,38 @@
+package com.cinemae.booking.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of {@code price_rules}. scope is GLOBAL, MOVIE (movie_id set) or SHOWTIME
+ * (showtime_id set); effective_to null means open-ended.
+ */
+public record PriceRuleDto(
+        long id,
+        String scope,
+        @JsonProperty("movie_id") Long movieId,
+        @JsonProperty("showtime_id") Long showtimeId,
+        @JsonProperty("child_cents") long childCents,
+        @JsonProperty("adult_cents") long adultCents,
+        @JsonProperty("senior_cents") long seniorCents,
+        @JsonProperty("booking_fee_cents") long bookingFeeCents,
+        boolean active,
+        @JsonProperty("effective_from") LocalDateTime effectiveFrom,
+        @JsonProperty("effective_to") LocalDateTime effectiveTo
+) {
+
+    public static final RowMapper<PriceRuleDto> ROW_MAPPER = (rs, rowNum) -> new PriceRuleDto(
+            rs.getLong("id"),
+            rs.getString("scope"),
+            rs.getObject("movie_id", Long.class),
+            rs.getObject("showtime_id", Long.class),
+            rs.getLong("child_cents"),
+            rs.getLong("adult_cents"),
+            rs.getLong("senior_cents"),
+            rs.getLong("booking_fee_cents"),
+            rs.getBoolean("active"),
+            rs.getObject("effective_from", LocalDateTime.class),
+            rs.getObject("effective_to", LocalDateTime.class));
+}
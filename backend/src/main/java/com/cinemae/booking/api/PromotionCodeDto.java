@@ -0,0 +1,23 @@
+package com.cinemae.booking.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * One row of {@code promotion_codes}; a null maxRedemptions means unlimited.
+ */
+public record PromotionCodeDto(
+        long id,
+        @JsonProperty("promotion_id") long promotionId,
+        String code,
+        @JsonProperty("max_redemptions") Integer maxRedemptions,
+        @JsonProperty("redeemed_count") int redeemedCount
+) {
+
+    public static final RowMapper<PromotionCodeDto> ROW_MAPPER = (rs, rowNum) -> new PromotionCodeDto(
+            rs.getLong("id"),
+            rs.getLong("promotion_id"),
+            rs.getString("code"),
+            rs.getObject("max_redemptions", Integer.class),
+            rs.getInt("redeemed_count"));
+}
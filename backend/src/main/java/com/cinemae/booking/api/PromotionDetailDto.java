@@ -0,0 +1,14 @@
+package com.cinemae.booking.api;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import java.util.List;
+
+/**
+ * A promotion together with its codes; serializes as the promotion's fields plus "codes".
+ */
+public record PromotionDetailDto(
+        @JsonUnwrapped PromotionDto promotion,
+        List<PromotionCodeDto> codes
+) {
+}
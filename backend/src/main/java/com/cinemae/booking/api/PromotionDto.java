@@ -0,0 +1,32 @@
+package com.cinemae.booking.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of {@code promotions}. Exactly one of percentOff / flatOffCents is normally set.
+ */
+public record PromotionDto(
+        long id,
+        String name,
+        String description,
+        @JsonProperty("percent_off") BigDecimal percentOff,
+        @JsonProperty("flat_off_cents") Integer flatOffCents,
+        @JsonProperty("starts_at") LocalDateTime startsAt,
+        @JsonProperty("ends_at") LocalDateTime endsAt,
+        boolean active
+) {
+
+    public static final RowMapper<PromotionDto> ROW_MAPPER = (rs, rowNum) -> new PromotionDto(
+            rs.getLong("id"),
+            rs.getString("name"),
+            rs.getString("description"),
+            rs.getBigDecimal("percent_off"),
+            rs.getObject("flat_off_cents", Integer.class),
+            rs.getObject("starts_at", LocalDateTime.class),
+            rs.getObject("ends_at", LocalDateTime.class),
+            rs.getBoolean("active"));
+}
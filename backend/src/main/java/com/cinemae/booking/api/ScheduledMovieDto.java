@@ -0,0 +1,19 @@
+package com.cinemae.booking.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import java.time.LocalDateTime;
+
+/**
+ * A movie on the now-playing / coming-soon shelves; serializes as the movie's fields plus
+ * its show window.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ScheduledMovieDto(
+        @JsonUnwrapped MovieDto movie,
+        @JsonProperty("first_show") LocalDateTime firstShow,
+        @JsonProperty("last_show") LocalDateTime lastShow
+) {
+}
@@ -0,0 +1,17 @@
+package com.cinemae.booking.api;
+
+import java.math.BigDecimal;
+
+/**
+ * One seat of a showtime's seat map, in the shape SeatMap.jsx renders
+ * (status: available, held or sold; price in dollars).
+ */
+public record SeatDto(
+        long id,
+        String row,
+        int number,
+        String type,
+        String status,
+        BigDecimal price
+) {
+}
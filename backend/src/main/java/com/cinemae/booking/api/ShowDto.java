@@ -0,0 +1,16 @@
+package com.cinemae.booking.api;
+
+import java.time.LocalDateTime;
+
+/**
+ * One showtime on a movie's schedule, as listed by ShowList.jsx.
+ */
+public record ShowDto(
+        long id,
+        LocalDateTime startTime,
+        int auditoriumId,
+        String auditorium,
+        int capacity,
+        int remainingSeats
+) {
+}
@@ -0,0 +1,17 @@
+package com.cinemae.booking.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One type-ahead hit: a movie title, or a person with the movies they appear in.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SuggestionDto(
+        String type,
+        long id,
+        String label,
+        List<Long> movieIds
+) {
+}
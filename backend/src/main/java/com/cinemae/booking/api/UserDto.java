@@ -0,0 +1,31 @@
+package com.cinemae.booking.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+
+/**
+ * Admin view of a user with their (single) role name.
+ */
+public record UserDto(
+        long id,
+        @JsonProperty("first_name") String firstName,
+        @JsonProperty("last_name") String lastName,
+        String email,
+        String phone,
+        @JsonProperty("is_suspended") boolean suspended,
+        @JsonProperty("created_at") Timestamp createdAt,
+        String role
+) {
+
+    public static final RowMapper<UserDto> ROW_MAPPER = (rs, rowNum) -> new UserDto(
+            rs.getLong("id"),
+            rs.getString("first_name"),
+            rs.getString("last_name"),
+            rs.getString("email"),
+            rs.getString("phone"),
+            rs.getBoolean("is_suspended"),
+            rs.getTimestamp("created_at"),
+            rs.getString("role"));
+}
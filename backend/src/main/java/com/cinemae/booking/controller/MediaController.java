@@ -0,0 +1,191 @@
+package com.cinemae.booking.controller;
+
+import com.cinemae.booking.service.MediaStore;
+import com.cinemae.booking.service.MediaStore.MediaFile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Serves poster/still images straight from disk: /api/media/Inception.jpg?w=480
+ * Bodies go out through the connector's sendfile when available (no copy through the heap),
+ * otherwise via FileChannel.transferTo. Supports single byte ranges and conditional GETs.
+ */
+@RestController
+@RequestMapping("/api/media")
+public class MediaController {
+
+    // Tomcat's sendfile handshake (see org.apache.coyote.Constants)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Tomcat's own default threshold; small files are cheaper to just write
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    // versioned URLs (?v=<etag>) never change content; bare names are revalidated daily
+    private static final String CACHE_IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String CACHE_DEFAULT = "public, max-age=86400";
+
+    private final MediaStore store;
+
+    @Autowired
+    public MediaController(MediaStore store) {
+        this.store = store;
+    }
+
+    @GetMapping("/{name:.+}")
+    public void serve(@PathVariable("name") String name,
+                      @RequestParam(name = "w", required = false) Integer width,
+                      @RequestParam(name = "v", required = false) String version,
+                      HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        Optional<MediaFile> found = store.resolve(name, width);
+        if (found.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        MediaFile file = found.get();
+
+        response.setHeader(HttpHeaders.ETAG, file.etag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, file.lastModified());
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                version != null && file.etag().equals("\"" + version + "\"") ? CACHE_IMMUTABLE : CACHE_DEFAULT);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, file)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = file.length() - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeApplies(request, file)) {
+            long[] parsed = parseRange(range, file.length());
+            if (parsed == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.length());
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + file.length());
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType(file.contentType());
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) return;
+
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // the connector streams the file region after we return
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel in = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long pos = start;
+            while (pos <= end) {
+                long sent = in.transferTo(pos, end + 1 - pos, out);
+                if (sent <= 0) break;
+                pos += sent;
+            }
+        }
+    }
+
+    // Re-run variant generation after dropping new images into the media root
+    @PostMapping("/ingest")
+    public Map<String, Object> ingest() {
+        Map<String, Object> resp = new HashMap<>();
+        try {
+            resp.put("ok", true);
+            resp.put("variantsWritten", store.ingest());
+        } catch (IOException e) {
+            System.err.println("Media ingest failed: " + e.getMessage());
+            resp.put("ok", false);
+            resp.put("message", "ingest failed");
+        }
+        return resp;
+    }
+
+    private static boolean notModified(HttpServletRequest request, MediaFile file) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // If-None-Match wins over If-Modified-Since when both are sent
+            return ifNoneMatch.trim().equals("*") || etagListContains(ifNoneMatch, file.etag());
+        }
+        long since = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        // header dates have second precision
+        return since >= 0 && file.lastModified() / 1000 <= since / 1000;
+    }
+
+    // If-Range: serve the range only if the client's copy is still current, else the whole file
+    private static boolean rangeApplies(HttpServletRequest request, MediaFile file) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) return ifRange.equals(file.etag());
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && file.lastModified() / 1000 == date / 1000;
+    }
+
+    private static boolean etagListContains(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * {start, end} (inclusive) for a single satisfiable range, an empty array when the header
+     * should be ignored (multiple ranges, other units, malformed), null when unsatisfiable.
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) return new long[0];
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return new long[0];
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) return null;
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start < 0 || (!last.isEmpty() && Long.parseLong(last) < start)) return new long[0];
+            if (start >= length) return null;
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
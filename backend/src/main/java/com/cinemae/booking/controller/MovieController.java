@@ -1,74 +1,146 @@
 package com.cinemae.booking.controller;
 
-import org.springframework.jdbc.core.JdbcTemplate;
+import com.cinemae.booking.api.MovieDto;
+import com.cinemae.booking.service.CatalogVersions;
+import com.cinemae.booking.service.MovieCatalogService;
+import com.cinemae.booking.service.MovieCatalogService.MovieQuery;
+import com.cinemae.booking.service.MovieFacetIndex;
+import com.cinemae.booking.service.MovieSuggestIndex;
+import com.cinemae.booking.service.NowPlayingService;
+import com.cinemae.booking.service.ShowScheduleService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.time.LocalDate;
 import java.util.*;
 
 @RestController
 @RequestMapping("/api/movies")
 public class MovieController {
 
-    private final JdbcTemplate jdbc;
+    private static final int MAX_BATCH_IDS = 100;
+    private static final int MAX_SHELF = 50;
+    private static final int MAX_SCHEDULE_DAYS = 31;
+
+    private final MovieCatalogService catalog;
+    private final MovieSuggestIndex suggestIndex;
+    private final NowPlayingService nowPlaying;
+    private final CatalogVersions versions;
+    private final ShowScheduleService schedules;
 
     @Autowired
-    public MovieController(JdbcTemplate jdbc) {
-        this.jdbc = jdbc;
+    public MovieController(MovieCatalogService catalog, MovieSuggestIndex suggestIndex, NowPlayingService nowPlaying,
+                           CatalogVersions versions, ShowScheduleService schedules) {
+        this.catalog = catalog;
+        this.suggestIndex = suggestIndex;
+        this.nowPlaying = nowPlaying;
+        this.versions = versions;
+        this.schedules = schedules;
     }
 
     @GetMapping
     public Map<String, Object> list(
             @RequestParam(name = "q", required = false) String q,
             @RequestParam(name = "page", defaultValue = "0") int page,
-            @RequestParam(name = "size", defaultValue = "12") int size
+            @RequestParam(name = "size", defaultValue = "12") int size,
+            // keyset mode: pass after= (empty) for the first page, then the returned nextCursor
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal,
+            // facet filters: category/rating by name, director/actor by person id; comma = any of
+            @RequestParam(name = "category", required = false) String category,
+            @RequestParam(name = "rating", required = false) String rating,
+            @RequestParam(name = "director", required = false) String director,
+            @RequestParam(name = "actor", required = false) String actor,
+            @RequestParam(name = "facets", defaultValue = "false") boolean facets,
+            WebRequest webRequest
     ) {
-        if (page < 0) page = 0;
-        if (size <= 0) size = 12;
+        // unchanged catalog since the client's copy: 304 without building the page
+        if (webRequest.checkNotModified(versions.etag(CatalogVersions.Table.MOVIES))) return null;
 
-        String where = "";
-        List<Object> params = new ArrayList<>();
+        MovieFacetIndex.Filter filter = new MovieFacetIndex.Filter(category, rating, director, actor);
+        return catalog.list(MovieQuery.of(q, page, size, after, includeTotal, filter, facets));
+    }
 
-        if (q != null && !q.trim().isEmpty()) {
-            where = " WHERE title LIKE ? OR synopsis LIKE ?";
-            String like = "%" + q.trim() + "%";
-            params.add(like);
-            params.add(like);
+    // Resolve several movies in one round trip, e.g. /api/movies/batch?ids=3,7,12
+    @GetMapping("/batch")
+    public Map<String, Object> getByIds(@RequestParam(name = "ids") List<Long> ids) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_IDS) {
+            resp.put("ok", false);
+            resp.put("message", "between 1 and " + MAX_BATCH_IDS + " ids required");
+            return resp;
         }
 
-        // total count
-        String countSql = "SELECT COUNT(*) FROM movies" + where;
-        Integer total = jdbc.queryForObject(countSql, params.toArray(), Integer.class);
-        if (total == null) total = 0;
+        Map<Long, MovieDto> movies = catalog.findByIds(ids);
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            if (!movies.containsKey(id) && !missing.contains(id)) missing.add(id);
+        }
 
-        // fetch page
-        int offset = page * size;
-        String sql = "SELECT id, title, mpaa_rating, synopsis, trailer_video_url, trailer_image_url FROM movies"
-                + where + " ORDER BY id ASC LIMIT ? OFFSET ?";
+        resp.put("ok", true);
+        resp.put("movies", movies);
+        resp.put("missing", missing);
+        return resp;
+    }
 
-        // add pagination params
-        params.add(size);
-        params.add(offset);
+    // type-ahead for the search box; answered from memory
+    @GetMapping("/suggest")
+    public Map<String, Object> suggest(
+            @RequestParam(name = "q", defaultValue = "") String q,
+            @RequestParam(name = "limit", defaultValue = "8") int limit
+    ) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("ok", true);
+        resp.put("q", q);
+        resp.put("suggestions", suggestIndex.suggest(q, limit));
+        return resp;
+    }
 
-        List<Map<String, Object>> rows = jdbc.queryForList(sql, params.toArray());
+    // home page shelves, served from the in-memory read model
+    @GetMapping("/now-playing")
+    public Map<String, Object> nowPlaying(@RequestParam(name = "limit", defaultValue = "12") int limit) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("ok", true);
+        resp.put("asOf", nowPlaying.builtAt());
+        resp.put("movies", nowPlaying.nowPlaying(Math.min(Math.max(limit, 1), MAX_SHELF)));
+        return resp;
+    }
 
-        // build response
+    @GetMapping("/coming-soon")
+    public Map<String, Object> comingSoon(@RequestParam(name = "limit", defaultValue = "12") int limit) {
         Map<String, Object> resp = new LinkedHashMap<>();
-        resp.put("page", page);
-        resp.put("size", size);
-        resp.put("totalElements", total);
-        resp.put("totalPages", (int) Math.ceil(total / (double) size));
-        resp.put("content", rows);
+        resp.put("ok", true);
+        resp.put("asOf", nowPlaying.builtAt());
+        resp.put("movies", nowPlaying.comingSoon(Math.min(Math.max(limit, 1), MAX_SHELF)));
+        return resp;
+    }
 
+    // Schedule for a movie: ?date=2025-11-01 (default today) and ?days= (default 7)
+    @GetMapping("/{id}/shows")
+    public Map<String, Object> getShows(
+            @PathVariable("id") Long id,
+            @RequestParam(name = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(name = "days", defaultValue = "7") int days
+    ) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        LocalDate from = date != null ? date : LocalDate.now();
+        resp.put("ok", true);
+        resp.put("movieId", id);
+        resp.put("dates", schedules.dates(id));
+        resp.put("shows", schedules.shows(id, from, Math.min(Math.max(days, 1), MAX_SCHEDULE_DAYS)));
         return resp;
     }
 
     @GetMapping("/{id}")
-    public Map<String, Object> getById(@PathVariable("id") Integer id) {
+    public Map<String, Object> getById(@PathVariable("id") Integer id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(versions.etag(CatalogVersions.Table.MOVIES))) return null;
+
         Map<String, Object> resp = new HashMap<>();
         if (id == null) {
             resp.put("ok", false);
@@ -76,16 +148,38 @@ public class MovieController {
             return resp;
         }
 
-        List<Map<String, Object>> rows = jdbc.queryForList("SELECT id, title, mpaa_rating, synopsis, trailer_video_url, trailer_image_url FROM movies WHERE id = ?", id);
-        if (rows.isEmpty()) {
+        Optional<MovieDto> movie = catalog.findById(id);
+        if (movie.isEmpty()) {
             resp.put("ok", false);
             resp.put("message", "movie not found");
             return resp;
         }
 
-        Map<String, Object> movie = rows.get(0);
         resp.put("ok", true);
-        resp.put("movie", movie);
+        resp.put("movie", movie.get());
+        return resp;
+    }
+
+    // catalog cache hit/miss/eviction counters
+    @GetMapping("/cache/stats")
+    public Map<String, Object> cacheStats() {
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("ok", true);
+        resp.put("caches", catalog.cacheStats());
+        return resp;
+    }
+
+    // Drop cached catalog entries after editing movies outside the API (one movie, or everything)
+    @PostMapping("/cache/invalidate")
+    public Map<String, Object> invalidateCache(@RequestParam(name = "id", required = false) Long id) {
+        if (id != null) {
+            catalog.invalidateMovie(id);
+        } else {
+            catalog.invalidateAll();
+        }
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("ok", true);
+        resp.put("invalidated", id != null ? id : "all");
         return resp;
     }
 
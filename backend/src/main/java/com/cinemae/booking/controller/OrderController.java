@@ -0,0 +1,123 @@
+package com.cinemae.booking.controller;
+
+import com.cinemae.booking.api.OrderDto;
+import com.cinemae.booking.service.OrderService;
+import com.cinemae.booking.service.PricingEngine;
+import com.cinemae.booking.service.PromoAttemptThrottle;
+import com.cinemae.booking.service.PromoCodeFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/orders")
+public class OrderController {
+
+    private final OrderService orders;
+    private final PromoCodeFilter promoCodes;
+    private final PromoAttemptThrottle promoAttempts;
+
+    @Autowired
+    public OrderController(OrderService orders, PromoCodeFilter promoCodes, PromoAttemptThrottle promoAttempts) {
+        this.orders = orders;
+        this.promoCodes = promoCodes;
+        this.promoAttempts = promoAttempts;
+    }
+
+    // Checkout a seat hold: body { "reservationId": "...", "userId": 5, "ageCategories": { "<seatId>": "CHILD" }, "promoCode": optional }.
+    // Send the same Idempotency-Key on retries; duplicates get the first response back.
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createOrder(
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody Map<String, Object> payload,
+            HttpServletRequest request
+    ) {
+        String reservationId = (String) payload.get("reservationId");
+        Long userId = payload.get("userId") != null ? ((Number) payload.get("userId")).longValue() : null;
+        // sorted so the request fingerprint doesn't depend on JSON key order
+        Map<Long, PricingEngine.AgeCategory> ages = new TreeMap<>();
+        if (payload.get("ageCategories") instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                try {
+                    ages.put(Long.parseLong(String.valueOf(e.getKey())),
+                            PricingEngine.AgeCategory.valueOf(String.valueOf(e.getValue()).toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException ex) {
+                    return badRequest("bad age category for seat " + e.getKey());
+                }
+            }
+        }
+        if (reservationId == null) return badRequest("reservationId required");
+
+        String promoCode = (String) payload.get("promoCode");
+        // retries of an order already placed get their replay, never a throttle answer
+        if (promoCode != null && !promoCode.isBlank() && !orders.isReplay(idempotencyKey)) {
+            // same guessing budget as /api/promotions/validate
+            String client = request.getRemoteAddr();
+            if (!promoAttempts.permits(client)) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .body(new LinkedHashMap<>(Map.of("ok", false, "message", "too many promo code attempts, try again later")));
+            }
+            if (!promoCodes.mightContain(promoCode)) {
+                promoAttempts.miss(client);
+                return badRequest("promo code unknown");
+            }
+        }
+        OrderService.Result result = orders.place(new OrderService.OrderRequest(reservationId, userId, ages, promoCode), idempotencyKey);
+        return respond(result);
+    }
+
+    // Mark a pending order paid
+    @PostMapping("/{id}/confirm")
+    public ResponseEntity<Map<String, Object>> confirmOrder(
+            @PathVariable("id") String id,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey
+    ) {
+        return respond(orders.confirm(id, idempotencyKey));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getOrder(@PathVariable("id") String id) {
+        Optional<OrderDto> order = orders.find(id);
+        Map<String, Object> resp = new LinkedHashMap<>();
+        if (order.isEmpty()) {
+            resp.put("ok", false);
+            resp.put("message", "order not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(resp);
+        }
+        resp.put("ok", true);
+        resp.put("order", order.get());
+        return ResponseEntity.ok(resp);
+    }
+
+    private static ResponseEntity<Map<String, Object>> respond(OrderService.Result result) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        HttpStatus status = switch (result.outcome()) {
+            case CREATED -> HttpStatus.CREATED;
+            case CONFIRMED -> HttpStatus.OK;
+            case NOT_FOUND -> HttpStatus.NOT_FOUND;
+            case CONFLICT -> HttpStatus.CONFLICT;
+            case INVALID -> HttpStatus.BAD_REQUEST;
+        };
+        resp.put("ok", result.order() != null);
+        if (result.order() != null) {
+            resp.put("orderId", result.order().orderId());
+            resp.put("order", result.order());
+        } else {
+            resp.put("message", result.message());
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+        if (result.replayed()) builder.header("Idempotent-Replayed", "true");
+        return builder.body(resp);
+    }
+
+    private static ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("ok", false);
+        resp.put("message", message);
+        return ResponseEntity.badRequest().body(resp);
+    }
+}
@@ -1,5 +1,6 @@
 package com.cinemae.booking.controller;
 
+import com.cinemae.booking.api.PaymentMethodDto;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.*;
@@ -71,30 +72,20 @@ public class PaymentController {
             resp.put("message", "userId required (in dev mode)");
             return resp;
         }
-        List<Map<String, Object>> rows = jdbc.queryForList("SELECT id, provider, provider_token, brand, last4, exp_month, exp_year, is_default, billing_address, created_at FROM payment_methods WHERE user_id = ? ORDER BY created_at DESC", userId);
+        List<PaymentMethodDto> rows = jdbc.query("SELECT id, provider, provider_token, brand, last4, exp_month, exp_year, is_default, billing_address, created_at FROM payment_methods WHERE user_id = ? ORDER BY created_at DESC", PaymentMethodDto.ROW_MAPPER, userId);
         
         // Decrypt sensitive fields for display
-        List<Map<String, Object>> decryptedRows = rows.stream().map(row -> {
-            Map<String, Object> decrypted = new HashMap<>(row);
+        List<PaymentMethodDto> decryptedRows = rows.stream().map(row -> {
             try {
-                // Decrypt card number (stored in provider_token)
-                if (row.get("provider_token") != null) {
-                    String encryptedCardNumber = (String) row.get("provider_token");
-                    String decryptedCardNumber = decrypt(encryptedCardNumber);
-                    decrypted.put("provider_token", decryptedCardNumber);
-                }
-                
-                // Decrypt CVV (stored in last4)
-                if (row.get("last4") != null) {
-                    String encryptedCvv = (String) row.get("last4");
-                    String decryptedCvv = decrypt(encryptedCvv);
-                    decrypted.put("last4", decryptedCvv);
-                }
+                // card number is stored in provider_token, CVV in last4
+                String cardNumber = row.providerToken() != null ? decrypt(row.providerToken()) : null;
+                String cvv = row.last4() != null ? decrypt(row.last4()) : null;
+                return row.withSecrets(cardNumber, cvv);
             } catch (Exception e) {
-                System.err.println("Error decrypting payment method " + row.get("id") + ": " + e.getMessage());
+                System.err.println("Error decrypting payment method " + row.id() + ": " + e.getMessage());
                 // Return original if decryption fails (for backwards compatibility)
+                return row;
             }
-            return decrypted;
         }).collect(Collectors.toList());
         
         resp.put("ok", true);
@@ -140,11 +131,9 @@ public class PaymentController {
                     uid.longValue(), provider, encryptedToken, brand, encryptedLast4, expMonth == null ? null : expMonth.intValue(), expYear == null ? null : expYear.intValue(), billing, new Timestamp(System.currentTimeMillis()), new Timestamp(System.currentTimeMillis()));
 
             Long insertedId = jdbc.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
-            Map<String, Object> method = jdbc.queryForMap("SELECT id, provider, provider_token, brand, last4, exp_month, exp_year, is_default, billing_address, created_at FROM payment_methods WHERE id = ?", insertedId);
-
-            // Decrypt for response
-            method.put("provider_token", token);
-            method.put("last4", last4);
+            PaymentMethodDto method = jdbc.queryForObject("SELECT id, provider, provider_token, brand, last4, exp_month, exp_year, is_default, billing_address, created_at FROM payment_methods WHERE id = ?", PaymentMethodDto.ROW_MAPPER, insertedId)
+                    // Decrypt for response
+                    .withSecrets(token, last4);
 
             resp.put("ok", true);
             resp.put("message", "saved");
@@ -251,18 +240,13 @@ public class PaymentController {
             String finalQuery = updateQuery.toString();
             jdbc.update(finalQuery, params.toArray());
 
-            Map<String, Object> method = jdbc.queryForMap("SELECT id, provider, provider_token, brand, last4, exp_month, exp_year, is_default, billing_address, created_at, updated_at FROM payment_methods WHERE id = ?", id);
+            PaymentMethodDto method = jdbc.queryForObject("SELECT id, provider, provider_token, brand, last4, exp_month, exp_year, is_default, billing_address, created_at, updated_at FROM payment_methods WHERE id = ?", PaymentMethodDto.ROW_MAPPER_WITH_UPDATED, id);
 
             // Decrypt for response
             try {
-                if (method.get("provider_token") != null) {
-                    String encryptedCardNumber = (String) method.get("provider_token");
-                    method.put("provider_token", decrypt(encryptedCardNumber));
-                }
-                if (method.get("last4") != null) {
-                    String encryptedCvv = (String) method.get("last4");
-                    method.put("last4", decrypt(encryptedCvv));
-                }
+                method = method.withSecrets(
+                        method.providerToken() != null ? decrypt(method.providerToken()) : null,
+                        method.last4() != null ? decrypt(method.last4()) : null);
             } catch (Exception e) {
                 System.err.println("Error decrypting updated payment method: " + e.getMessage());
             }
@@ -0,0 +1,115 @@
+package com.cinemae.booking.controller;
+
+import com.cinemae.booking.api.PriceRuleDto;
+import com.cinemae.booking.service.PricingEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/price-rules")
+public class PriceRuleController {
+
+    private static final Set<String> SCOPES = Set.of("GLOBAL", "MOVIE", "SHOWTIME");
+
+    private final JdbcTemplate jdbc;
+    private final PricingEngine pricing;
+
+    @Autowired
+    public PriceRuleController(JdbcTemplate jdbc, PricingEngine pricing) {
+        this.jdbc = jdbc;
+        this.pricing = pricing;
+    }
+
+    // Get all price rules, newest first
+    @GetMapping
+    public List<PriceRuleDto> getAllRules() {
+        return jdbc.query("SELECT * FROM price_rules ORDER BY effective_from DESC, id DESC", PriceRuleDto.ROW_MAPPER);
+    }
+
+    // Create a rule: { scope, movie_id | showtime_id, child_cents, adult_cents, senior_cents, booking_fee_cents, effective_from, effective_to }
+    @PostMapping
+    public Map<String, Object> createRule(@RequestBody Map<String, Object> payload) {
+        Object[] values = values(payload);
+        if (values == null) return Map.of("error", "scope must be GLOBAL, MOVIE (with movie_id) or SHOWTIME (with showtime_id)");
+
+        jdbc.update(
+            "INSERT INTO price_rules (scope, movie_id, showtime_id, child_cents, adult_cents, senior_cents, booking_fee_cents, active, effective_from, effective_to) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, COALESCE(?, NOW()), ?)",
+            values
+        );
+        pricing.recompile();
+        return Map.of("status", "Price rule created successfully");
+    }
+
+    // Update an existing rule (same body as create)
+    @PutMapping("/{id}")
+    public Map<String, Object> updateRule(@PathVariable Long id, @RequestBody Map<String, Object> payload) {
+        Object[] values = values(payload);
+        if (values == null) return Map.of("error", "scope must be GLOBAL, MOVIE (with movie_id) or SHOWTIME (with showtime_id)");
+
+        Object[] args = Arrays.copyOf(values, values.length + 1);
+        args[values.length] = id;
+        int updated = jdbc.update(
+            "UPDATE price_rules SET scope = ?, movie_id = ?, showtime_id = ?, child_cents = ?, adult_cents = ?, senior_cents = ?, "
+                + "booking_fee_cents = ?, active = ?, effective_from = COALESCE(?, effective_from), effective_to = ? WHERE id = ?",
+            args
+        );
+        pricing.recompile();
+
+        if (updated > 0) {
+            return Map.of("status", "Price rule updated successfully");
+        } else {
+            return Map.of("error", "Price rule not found");
+        }
+    }
+
+    // Delete a rule
+    @DeleteMapping("/{id}")
+    public Map<String, Object> deleteRule(@PathVariable Long id) {
+        int deleted = jdbc.update("DELETE FROM price_rules WHERE id = ?", id);
+        pricing.recompile();
+        if (deleted > 0) {
+            return Map.of("status", "Price rule deleted successfully");
+        } else {
+            return Map.of("error", "Price rule not found");
+        }
+    }
+
+    // Re-read rules after editing price_rules outside the API
+    @PostMapping("/recompile")
+    public Map<String, Object> recompile() {
+        pricing.recompile();
+        return Map.of("status", "Price rules recompiled", "rules", pricing.ruleCount());
+    }
+
+    // column values in INSERT order, or null if the scope and its target id don't match
+    private static Object[] values(Map<String, Object> payload) {
+        String scope = payload.get("scope") != null ? ((String) payload.get("scope")).toUpperCase(Locale.ROOT) : "GLOBAL";
+        Long movieId = payload.get("movie_id") != null ? ((Number) payload.get("movie_id")).longValue() : null;
+        Long showtimeId = payload.get("showtime_id") != null ? ((Number) payload.get("showtime_id")).longValue() : null;
+        if (!SCOPES.contains(scope)
+                || ("MOVIE".equals(scope) && movieId == null)
+                || ("SHOWTIME".equals(scope) && showtimeId == null)) {
+            return null;
+        }
+        return new Object[]{
+            scope,
+            "MOVIE".equals(scope) ? movieId : null,
+            "SHOWTIME".equals(scope) ? showtimeId : null,
+            cents(payload, "child_cents"),
+            cents(payload, "adult_cents"),
+            cents(payload, "senior_cents"),
+            cents(payload, "booking_fee_cents"),
+            payload.get("active") != null ? ((Boolean) payload.get("active") ? 1 : 0) : 1,
+            payload.get("effective_from"),
+            payload.get("effective_to")
+        };
+    }
+
+    private static long cents(Map<String, Object> payload, String key) {
+        return payload.get(key) != null ? ((Number) payload.get(key)).longValue() : 0;
+    }
+}
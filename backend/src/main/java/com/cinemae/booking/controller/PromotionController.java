@@ -1,10 +1,30 @@
 package com.cinemae.booking.controller;
 
+import com.cinemae.booking.api.PromotionCodeDto;
+import com.cinemae.booking.api.PromotionDetailDto;
+import com.cinemae.booking.api.PromotionDto;
+import com.cinemae.booking.service.CatalogVersions;
+import com.cinemae.booking.service.PromoAttemptThrottle;
+import com.cinemae.booking.service.PromoCodeFilter;
+import com.cinemae.booking.service.PromoCodeGenerator;
+import com.cinemae.booking.service.PromoRedemptionLedger;
+import com.cinemae.booking.service.PromotionIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @RestController
@@ -12,32 +32,78 @@ import java.util.*;
 public class PromotionController {
     
     private final JdbcTemplate jdbc;
+    private final CatalogVersions versions;
+    private final PromoRedemptionLedger redemptions;
+    private final PromotionIndex index;
+    private final PromoCodeFilter filter;
+    private final PromoAttemptThrottle throttle;
+    private final PromoCodeGenerator generator;
+    private final int maxGenerate;
 
     @Autowired
-    public PromotionController(JdbcTemplate jdbc) {
+    public PromotionController(JdbcTemplate jdbc, CatalogVersions versions, PromoRedemptionLedger redemptions,
+                               PromotionIndex index, PromoCodeFilter filter, PromoAttemptThrottle throttle,
+                               PromoCodeGenerator generator,
+                               @Value("${app.promotions.generate.max-count:200000}") int maxGenerate) {
         this.jdbc = jdbc;
+        this.versions = versions;
+        this.redemptions = redemptions;
+        this.index = index;
+        this.filter = filter;
+        this.throttle = throttle;
+        this.generator = generator;
+        this.maxGenerate = maxGenerate;
     }
 
-    // Get all promotions
+    // Get all promotions (304 if nothing was written since the client's ETag)
     @GetMapping
-    public List<Map<String, Object>> getAllPromotions() {
+    public List<PromotionDto> getAllPromotions(WebRequest webRequest) {
+        if (webRequest.checkNotModified(versions.etag(CatalogVersions.Table.PROMOTIONS))) return null;
+
         String sql = "SELECT * FROM promotions ORDER BY starts_at DESC";
-        return jdbc.queryForList(sql);
+        return jdbc.query(sql, PromotionDto.ROW_MAPPER);
+    }
+
+    // Promotions running right now, from memory
+    @GetMapping("/active")
+    public List<PromotionDto> getActivePromotions(WebRequest webRequest) {
+        if (webRequest.checkNotModified(versions.etag(CatalogVersions.Table.PROMOTIONS))) return null;
+        return index.active();
+    }
+
+    // Check a code at checkout; subtotalCents is optional and only used to show the discount.
+    // 429 once a client has guessed too many unknown codes.
+    @GetMapping("/validate")
+    public ResponseEntity<Map<String, Object>> validateCode(@RequestParam String code,
+                                                            @RequestParam(required = false) Long subtotalCents,
+                                                            HttpServletRequest request) {
+        String client = request.getRemoteAddr();
+        if (!throttle.permits(client)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", "Too many attempts, try again later"));
+        }
+        PromotionIndex.Validation v = index.validate(code);
+        if (v.status() == PromotionIndex.Status.UNKNOWN) throttle.miss(client);
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("code", v.code());
+        resp.put("valid", v.valid());
+        resp.put("status", v.status());
+        resp.put("promotion", v.promotion());
+        if (subtotalCents != null) resp.put("discountCents", v.discountCents(subtotalCents));
+        return ResponseEntity.ok(resp);
     }
 
     // Get a single promotion by ID, including codes
     @GetMapping("/{id}")
-    public Map<String, Object> getPromotionById(@PathVariable Long id) {
+    public Object getPromotionById(@PathVariable Long id) {
         try {
             String promoSql = "SELECT * FROM promotions WHERE id = ?";
-            Map<String, Object> promotion = jdbc.queryForMap(promoSql, id);
+            PromotionDto promotion = jdbc.queryForObject(promoSql, PromotionDto.ROW_MAPPER, id);
 
             // Get associated codes
             String codesSql = "SELECT * FROM promotion_codes WHERE promotion_id = ?";
-            List<Map<String, Object>> codes = jdbc.queryForList(codesSql, id);
-            promotion.put("codes", codes);
+            List<PromotionCodeDto> codes = jdbc.query(codesSql, PromotionCodeDto.ROW_MAPPER, id);
 
-            return promotion;
+            return new PromotionDetailDto(promotion, codes);
         } catch (EmptyResultDataAccessException e) {
             return Map.of("error", "Promotion not found");
         }
@@ -58,6 +124,7 @@ public class PromotionController {
             "INSERT INTO promotions (name, description, percent_off, flat_off_cents, starts_at, ends_at, active) VALUES (?, ?, ?, ?, ?, ?, ?)",
             name, description, percentOff, flatOff, startsAt, endsAt, active ? 1 : 0
         );
+        changed();
 
         if (inserted > 0) {
             return Map.of("status", "Promotion created successfully");
@@ -81,6 +148,7 @@ public class PromotionController {
             "UPDATE promotions SET name = ?, description = ?, percent_off = ?, flat_off_cents = ?, starts_at = ?, ends_at = ?, active = ? WHERE id = ?",
             name, description, percentOff, flatOff, startsAt, endsAt, active ? 1 : 0, id
         );
+        changed();
 
         if (updated > 0) {
             return Map.of("status", "Promotion updated successfully");
@@ -92,7 +160,11 @@ public class PromotionController {
     // Delete a promotion
     @DeleteMapping("/{id}")
     public Map<String, Object> deletePromotion(@PathVariable Long id) {
+        redemptions.forgetPromotion(id);
         int deleted = jdbc.update("DELETE FROM promotions WHERE id = ?", id);
+        // its codes went with it (ON DELETE CASCADE)
+        if (deleted > 0) filter.rebuild();
+        changed();
         if (deleted > 0) {
             return Map.of("status", "Promotion deleted successfully");
         } else {
@@ -110,18 +182,105 @@ public class PromotionController {
             "INSERT INTO promotion_codes (promotion_id, code, max_redemptions) VALUES (?, ?, ?)",
             id, code, maxRedemptions
         );
+        codesChanged(() -> index.addCodes(List.of(code)));
 
         return Map.of("status", "Code added successfully");
     }
 
+    // Generate many unique codes at once and stream them back as CSV.
+    // Body: { "count": 100000, "prefix": "SUMMER", "length": 10, "max_redemptions": 1 }
+    @PostMapping("/{id}/codes/generate")
+    public ResponseEntity<?> generateCodes(@PathVariable Long id, @RequestBody Map<String, Object> payload) {
+        int count = payload.get("count") != null ? ((Number) payload.get("count")).intValue() : 0;
+        String prefix = ((String) payload.getOrDefault("prefix", "")).trim().toUpperCase(Locale.ROOT);
+        int length = payload.get("length") != null ? ((Number) payload.get("length")).intValue() : 10;
+        Integer maxRedemptions = payload.containsKey("max_redemptions")
+                ? (payload.get("max_redemptions") != null ? ((Number) payload.get("max_redemptions")).intValue() : null)
+                : Integer.valueOf(1); // single use unless asked otherwise
+
+        if (count < 1 || count > maxGenerate) return ResponseEntity.badRequest().body(Map.of("error", "count must be 1.." + maxGenerate));
+        if (!prefix.matches("[A-Z0-9-]*")) return ResponseEntity.badRequest().body(Map.of("error", "prefix may only use letters, digits and '-'"));
+        // 8 random characters = 40 bits, plenty against guessing with the attempt throttle in front
+        if (length < 8 || prefix.length() + length > PromoCodeGenerator.MAX_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("error", "length must be at least 8 and prefix + length at most " + PromoCodeGenerator.MAX_LENGTH));
+        }
+        Integer exists = jdbc.queryForObject("SELECT COUNT(*) FROM promotions WHERE id = ?", Integer.class, id);
+        if (exists == null || exists == 0) return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Promotion not found"));
+
+        StreamingResponseBody body = out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.US_ASCII);
+            writer.write("code\n");
+            PromoCodeGenerator.Report report = generator.generate(id, count, prefix, length, maxRedemptions, chunk -> {
+                // committed; checkout can take them before the client has read them
+                codesChanged(() -> index.addCodes(chunk));
+                for (String code : chunk) {
+                    writer.write(code);
+                    writer.write('\n');
+                }
+                writer.flush();
+            });
+            System.out.println("Generated " + report.generated() + " codes for promotion " + id + " in "
+                    + report.millis() + " ms (" + report.codesPerSecond() + " codes/s)");
+        };
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.US_ASCII))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"promotion-" + id + "-codes.csv\"")
+                .body(body);
+    }
+
     // Delete a code
     @DeleteMapping("/codes/{codeId}")
     public Map<String, Object> deleteCode(@PathVariable Long codeId) {
+        List<String> code = jdbc.queryForList("SELECT code FROM promotion_codes WHERE id = ?", String.class, codeId);
         int deleted = jdbc.update("DELETE FROM promotion_codes WHERE id = ?", codeId);
+        // the filter keeps saying "maybe" to it until its next scheduled rebuild; the index says no
+        codesChanged(() -> index.removeCode(codeId, code.isEmpty() ? null : code.get(0)));
         if (deleted > 0) {
             return Map.of("status", "Code deleted successfully");
         } else {
             return Map.of("error", "Code not found");
         }
     }
+
+    // Live redemption count of a code, including redemptions not yet written to redeemed_count
+    @GetMapping("/codes/{code}/redemptions")
+    public Map<String, Object> getRedemptions(@PathVariable String code) {
+        long redeemed = redemptions.redeemed(code);
+        if (redeemed < 0) return Map.of("error", "Code not found");
+        long remaining = redemptions.remaining(code);
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("code", code);
+        resp.put("redeemed", redeemed);
+        resp.put("remaining", remaining < 0 ? null : remaining);
+        return resp;
+    }
+
+    // checkout validates against the index, so it has to see every write straight away
+    // (the ETag moves after the new index is in place, so it never labels the old list)
+    private void changed() {
+        try {
+            index.reload();
+        } catch (Exception e) {
+            System.err.println("Promotion index reload failed, next scheduled reload will pick this up: " + e.getMessage());
+        } finally {
+            versions.bump(CatalogVersions.Table.PROMOTIONS);
+        }
+    }
+
+    // single codes (or a generated chunk) go into the index as they are, no full reload
+    private void codesChanged(Runnable apply) {
+        try {
+            apply.run();
+        } catch (Exception e) {
+            System.err.println("Promotion index update failed, next scheduled reload will pick this up: " + e.getMessage());
+        } finally {
+            versions.bump(CatalogVersions.Table.PROMOTIONS);
+        }
+    }
+
+    // Write pending redemption counts now instead of at the next flush
+    @PostMapping("/redemptions/flush")
+    public Map<String, Object> flushRedemptions() {
+        return Map.of("status", "Redemptions flushed", "codes", redemptions.flush());
+    }
 }
@@ -0,0 +1,259 @@
+package com.cinemae.booking.controller;
+
+import com.cinemae.booking.service.AuditoriumLayout;
+import com.cinemae.booking.api.OccupancyDto;
+import com.cinemae.booking.api.PriceQuoteDto;
+import com.cinemae.booking.service.BestSeatFinder;
+import com.cinemae.booking.service.OccupancyCounters;
+import com.cinemae.booking.service.PricingEngine;
+import com.cinemae.booking.service.SeatEventHub;
+import com.cinemae.booking.service.SeatHold;
+import com.cinemae.booking.service.SeatMapService;
+import com.cinemae.booking.service.SeatReservationService;
+import com.cinemae.booking.service.ShowtimeSeats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/shows")
+public class ShowController {
+
+    private static final int MAX_OCCUPANCY_IDS = 200;
+
+    private final SeatMapService seatMaps;
+    private final SeatReservationService reservations;
+    private final SeatEventHub seatEvents;
+    private final BestSeatFinder bestSeats;
+    private final OccupancyCounters occupancy;
+    private final PricingEngine pricing;
+
+    @Autowired
+    public ShowController(SeatMapService seatMaps, SeatReservationService reservations, SeatEventHub seatEvents,
+                          BestSeatFinder bestSeats, OccupancyCounters occupancy, PricingEngine pricing) {
+        this.seatMaps = seatMaps;
+        this.reservations = reservations;
+        this.seatEvents = seatEvents;
+        this.bestSeats = bestSeats;
+        this.occupancy = occupancy;
+        this.pricing = pricing;
+    }
+
+    // Seat map of a showtime, answered from the in-memory availability bitmap
+    @GetMapping("/{id}/seats")
+    public Map<String, Object> getSeats(@PathVariable("id") Long id, WebRequest webRequest) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        Optional<ShowtimeSeats> seats = seatMaps.showtime(id);
+        if (seats.isEmpty()) {
+            resp.put("ok", false);
+            resp.put("message", "showtime not found");
+            return resp;
+        }
+        ShowtimeSeats s = seats.get();
+        // pollers get 304 until a seat changes
+        if (webRequest.checkNotModified(s.etag())) return null;
+
+        resp.put("ok", true);
+        resp.put("showtimeId", id);
+        resp.put("version", s.version());
+        resp.put("seats", seatMaps.seatMap(s));
+        return resp;
+    }
+
+    // Live seat changes: a "snapshot" event, then "seats" deltas { v, seats: { seatId: status } }
+    @GetMapping(path = "/{id}/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeats(@PathVariable("id") Long id,
+                                  @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        ShowtimeSeats seats = seatMaps.showtime(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "showtime not found"));
+        return seatEvents.subscribe(seats, lastEventId);
+    }
+
+    // Hold seats: body { "seats": [seatId, ...], "userId": optional }. All seats or none; 409 lists the taken ones.
+    @PostMapping("/{id}/reserve")
+    public ResponseEntity<Map<String, Object>> reserve(@PathVariable("id") Long id, @RequestBody Map<String, Object> payload) {
+        Long userId = payload.get("userId") != null ? ((Number) payload.get("userId")).longValue() : null;
+        List<Long> seatIds = new ArrayList<>();
+        if (payload.get("seats") instanceof List<?> list) {
+            for (Object seat : list) {
+                if (!(seat instanceof Number n)) return badRequest("seat ids must be numbers");
+                seatIds.add(n.longValue());
+            }
+        }
+
+        SeatReservationService.Result result = reservations.reserve(id, seatIds, userId);
+        return holdResponse(result);
+    }
+
+    // Give held seats back before they expire
+    @DeleteMapping("/{id}/holds/{holdId}")
+    public Map<String, Object> releaseHold(@PathVariable("id") Long id, @PathVariable("holdId") String holdId) {
+        Map<String, Object> resp = new HashMap<>();
+        boolean released = reservations.hold(holdId).filter(h -> h.showtimeId() == id).isPresent()
+                && reservations.release(holdId);
+        resp.put("ok", released);
+        if (!released) resp.put("message", "hold not found");
+        return resp;
+    }
+
+    // Best adjacent block for a party, e.g. ?count=4&type=PREMIUM (type optional)
+    @GetMapping("/{id}/best-seats")
+    public ResponseEntity<Map<String, Object>> findBestSeats(
+            @PathVariable("id") Long id,
+            @RequestParam(name = "count") int count,
+            @RequestParam(name = "type", required = false) String type
+    ) {
+        Optional<ShowtimeSeats> seats = seatMaps.showtime(id);
+        Map<String, Object> resp = new LinkedHashMap<>();
+        if (seats.isEmpty()) {
+            resp.put("ok", false);
+            resp.put("message", "showtime not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(resp);
+        }
+        String seatType = normalizeType(type);
+        if (seatType != null && !AuditoriumLayout.SEAT_TYPES.contains(seatType)) return badRequest("unknown seat type " + type);
+        Optional<int[]> block = bestSeats.find(seats.get(), count, seatType);
+        if (block.isEmpty()) {
+            resp.put("ok", false);
+            resp.put("message", "no " + count + " adjacent seats available");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(resp);
+        }
+        resp.put("ok", true);
+        resp.put("seats", seatMaps.seatMap(seats.get(), block.get()));
+        return ResponseEntity.ok(resp);
+    }
+
+    // Same search, but holds the block: body { "count": 4, "type": "PREMIUM", "userId": optional }
+    @PostMapping("/{id}/best-seats")
+    public ResponseEntity<Map<String, Object>> holdBestSeats(@PathVariable("id") Long id, @RequestBody Map<String, Object> payload) {
+        if (!(payload.get("count") instanceof Number count)) return badRequest("count required");
+        Long userId = payload.get("userId") != null ? ((Number) payload.get("userId")).longValue() : null;
+        String seatType = normalizeType((String) payload.get("type"));
+        if (seatType != null && !AuditoriumLayout.SEAT_TYPES.contains(seatType)) return badRequest("unknown seat type " + seatType);
+        Optional<ShowtimeSeats> seats = seatMaps.showtime(id);
+        if (seats.isEmpty()) {
+            return holdResponse(new SeatReservationService.Result(SeatReservationService.Outcome.NOT_FOUND, null,
+                    List.of(), "showtime not found"));
+        }
+        return holdResponse(bestSeats.hold(seats.get(), count.intValue(), seatType, userId));
+    }
+
+    // Price an order without touching the database: body { "tickets": { "ADULT": 2, "CHILD": 1 } }
+    @PostMapping("/{id}/quote")
+    public ResponseEntity<Map<String, Object>> quote(@PathVariable("id") Long id, @RequestBody Map<String, Object> payload) {
+        Map<PricingEngine.AgeCategory, Integer> tickets = new EnumMap<>(PricingEngine.AgeCategory.class);
+        if (payload.get("tickets") instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                PricingEngine.AgeCategory age;
+                try {
+                    age = PricingEngine.AgeCategory.valueOf(String.valueOf(e.getKey()).toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException ex) {
+                    return badRequest("unknown age category " + e.getKey());
+                }
+                if (!(e.getValue() instanceof Number n) || n.intValue() < 0) return badRequest("ticket counts must be numbers");
+                tickets.merge(age, n.intValue(), Integer::sum);
+            }
+        }
+        int count = tickets.values().stream().mapToInt(Integer::intValue).sum();
+        if (count < 1 || count > reservations.maxSeatsPerHold()) {
+            return badRequest("between 1 and " + reservations.maxSeatsPerHold() + " tickets required");
+        }
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        Optional<ShowtimeSeats> seats = seatMaps.showtime(id);
+        if (seats.isEmpty()) {
+            resp.put("ok", false);
+            resp.put("message", "showtime not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(resp);
+        }
+        Optional<PriceQuoteDto> quote = pricing.quote(seats.get(), tickets, System.currentTimeMillis());
+        if (quote.isEmpty()) {
+            resp.put("ok", false);
+            resp.put("message", "no price rule applies to this showtime");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(resp);
+        }
+        resp.put("ok", true);
+        resp.put("quote", quote.get());
+        return ResponseEntity.ok(resp);
+    }
+
+    // Sold/held/free counts for a listing page, e.g. /api/shows/occupancy?ids=4,5,9
+    @GetMapping("/occupancy")
+    public Map<String, Object> getOccupancies(@RequestParam(name = "ids") List<Long> ids) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        if (ids.isEmpty() || ids.size() > MAX_OCCUPANCY_IDS) {
+            resp.put("ok", false);
+            resp.put("message", "between 1 and " + MAX_OCCUPANCY_IDS + " ids required");
+            return resp;
+        }
+        resp.put("ok", true);
+        resp.put("occupancy", occupancy.getAll(ids));
+        return resp;
+    }
+
+    @GetMapping("/{id}/occupancy")
+    public Map<String, Object> getOccupancy(@PathVariable("id") Long id) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        Optional<OccupancyDto> o = occupancy.get(id);
+        resp.put("ok", o.isPresent());
+        if (o.isPresent()) resp.put("occupancy", o.get()); else resp.put("message", "showtime not found");
+        return resp;
+    }
+
+    // Write pending counters to showtime_occupancy now instead of at the next checkpoint
+    @PostMapping("/occupancy/checkpoint")
+    public Map<String, Object> checkpointOccupancy() {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("ok", true);
+        resp.put("written", occupancy.checkpoint());
+        return resp;
+    }
+
+    private static String normalizeType(String type) {
+        return type == null || type.isBlank() ? null : type.trim().toUpperCase(Locale.ROOT);
+    }
+
+    static ResponseEntity<Map<String, Object>> holdResponse(SeatReservationService.Result result) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        switch (result.outcome()) {
+            case HELD -> {
+                SeatHold hold = result.hold();
+                resp.put("ok", true);
+                resp.put("reservationId", hold.id());
+                resp.put("showtimeId", hold.showtimeId());
+                resp.put("seats", Arrays.stream(hold.seatIds()).boxed().toList());
+                resp.put("expiresAt", Instant.ofEpochMilli(hold.expiresAt()));
+                return ResponseEntity.ok(resp);
+            }
+            case CONFLICT -> {
+                resp.put("ok", false);
+                resp.put("message", result.message());
+                resp.put("unavailable", result.unavailable());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(resp);
+            }
+            case NOT_FOUND -> {
+                resp.put("ok", false);
+                resp.put("message", result.message());
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(resp);
+            }
+            default -> {
+                return badRequest(result.message());
+            }
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("ok", false);
+        resp.put("message", message);
+        return ResponseEntity.badRequest().body(resp);
+    }
+}
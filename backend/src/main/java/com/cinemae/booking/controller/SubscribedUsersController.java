@@ -1,6 +1,7 @@
 package com.cinemae.booking.controller;
 
 import com.cinemae.booking.service.EmailService;
+import com.cinemae.booking.service.OrderQuoteCalculator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.*;
@@ -58,12 +59,12 @@ public class SubscribedUsersController {
             String promoTitle = (String) promo.get("name");
             String promoDesc = promo.get("description") != null ? (String) promo.get("description") : "";
             Double percentOff = promo.get("percent_off") != null ? ((Number) promo.get("percent_off")).doubleValue() : null;
-            Integer flatOffCents = promo.get("flat_off_cents") != null ? ((Number) promo.get("flat_off_cents")).intValue() : null;
+            Long flatOffCents = promo.get("flat_off_cents") != null ? ((Number) promo.get("flat_off_cents")).longValue() : null;
             String startsAt = promo.get("starts_at").toString();
             String endsAt = promo.get("ends_at").toString();
 
             String discountText = percentOff != null ? String.format("%.0f%% off", percentOff) :
-                                  flatOffCents != null ? String.format("$%.2f off", flatOffCents / 100.0) :
+                                  flatOffCents != null ? OrderQuoteCalculator.format(flatOffCents) + " off" :
                                   "a special discount";
 
             // 3️⃣ Send emails using EmailService
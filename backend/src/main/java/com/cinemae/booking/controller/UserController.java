@@ -1,5 +1,6 @@
 package com.cinemae.booking.controller;
 
+import com.cinemae.booking.api.UserDto;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -20,7 +21,7 @@ public class UserController {
 
     // Get all users
     @GetMapping
-    public List<Map<String, Object>> getAllUsers() {
+    public List<UserDto> getAllUsers() {
         String sql = """
             SELECT 
                 u.id,
@@ -36,12 +37,12 @@ public class UserController {
             LEFT JOIN roles r ON ur.role_id = r.id
             ORDER BY u.id DESC
         """;
-        return jdbc.queryForList(sql);
+        return jdbc.query(sql, UserDto.ROW_MAPPER);
     }
 
     // Get user by ID
     @GetMapping("/{id}")
-    public Map<String, Object> getUserById(@PathVariable Long id) {
+    public Object getUserById(@PathVariable Long id) {
         try {
             String sql = """
                 SELECT 
@@ -58,7 +59,7 @@ public class UserController {
                 LEFT JOIN roles r ON ur.role_id = r.id
                 WHERE u.id = ?
             """;
-            return jdbc.queryForMap(sql, id);
+            return jdbc.queryForObject(sql, UserDto.ROW_MAPPER, id);
         } catch (EmptyResultDataAccessException e) {
             return Map.of("error", "User not found");
         }
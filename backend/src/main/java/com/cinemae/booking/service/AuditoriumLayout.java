@@ -0,0 +1,99 @@
+package com.cinemae.booking.service;
+
+import java.util.*;
+
+/**
+ * Immutable seat grid of one auditorium. Seats get dense indexes ordered by row, then seat
+ * number, so a row is a contiguous index range and a showtime's availability is a plain
+ * bitmap over those indexes.
+ */
+public final class AuditoriumLayout {
+
+    public record Seat(long id, String row, int number, String type) {}
+
+    // seats.seat_type values; index into per-type tables
+    public static final List<String> SEAT_TYPES = List.of("STANDARD", "ACCESSIBLE", "PREMIUM");
+
+    private final int auditoriumId;
+    private final Seat[] seats;
+    // row r covers indexes [rowStart[r], rowStart[r + 1])
+    private final int[] rowStart;
+    private final Map<Long, Integer> indexById;
+    private final int[] rowOf;
+    private final byte[] typeOf;
+    // seat i directly follows seat i - 1 in the same row (no aisle or numbering gap)
+    private final BitSet adjacent;
+
+    AuditoriumLayout(int auditoriumId, List<Seat> source) {
+        this.auditoriumId = auditoriumId;
+        this.seats = source.toArray(new Seat[0]);
+        // "B" before "AA": shorter labels first, then alphabetical
+        Arrays.sort(this.seats, Comparator.comparingInt((Seat s) -> s.row().length())
+                .thenComparing(Seat::row)
+                .thenComparingInt(Seat::number));
+
+        List<Integer> starts = new ArrayList<>();
+        Map<Long, Integer> byId = new HashMap<>(seats.length * 2);
+        for (int i = 0; i < seats.length; i++) {
+            if (i == 0 || !seats[i].row().equals(seats[i - 1].row())) starts.add(i);
+            byId.put(seats[i].id(), i);
+        }
+        starts.add(seats.length);
+        this.rowStart = starts.stream().mapToInt(Integer::intValue).toArray();
+        this.indexById = byId;
+
+        this.rowOf = new int[seats.length];
+        this.typeOf = new byte[seats.length];
+        this.adjacent = new BitSet(seats.length);
+        for (int r = 0; r + 1 < rowStart.length; r++) {
+            for (int i = rowStart[r]; i < rowStart[r + 1]; i++) {
+                rowOf[i] = r;
+                typeOf[i] = (byte) Math.max(0, SEAT_TYPES.indexOf(seats[i].type()));
+                if (i > rowStart[r] && seats[i].number() == seats[i - 1].number() + 1) adjacent.set(i);
+            }
+        }
+    }
+
+    public int auditoriumId() {
+        return auditoriumId;
+    }
+
+    public int size() {
+        return seats.length;
+    }
+
+    public Seat seat(int index) {
+        return seats[index];
+    }
+
+    /** Dense index of a seat id, or -1 if the seat isn't in this auditorium. */
+    public int indexOf(long seatId) {
+        Integer index = indexById.get(seatId);
+        return index == null ? -1 : index;
+    }
+
+    public int rowOf(int index) {
+        return rowOf[index];
+    }
+
+    /** Index into {@link #SEAT_TYPES}. */
+    public int typeOf(int index) {
+        return typeOf[index];
+    }
+
+    public boolean adjacentToPrevious(int index) {
+        return adjacent.get(index);
+    }
+
+    public int rowCount() {
+        return rowStart.length - 1;
+    }
+
+    public int rowStart(int row) {
+        return rowStart[row];
+    }
+
+    public int rowEnd(int row) {
+        return rowStart[row + 1];
+    }
+}
@@ -0,0 +1,87 @@
+package com.cinemae.booking.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Picks the best block of adjacent free seats for a party: rows closest to the sweet spot
+ * (about 60% of the way back) first, then the block closest to the row's centre. Works off
+ * the per-row free runs in {@link RowRunIndex}, so rows without a long enough run are skipped
+ * without looking at a single seat.
+ */
+@Service
+public class BestSeatFinder {
+
+    private static final double SWEET_SPOT = 0.6;
+    // moving one row away from the sweet spot costs as much as shifting this many seats off centre
+    private static final double ROW_WEIGHT = 3.0;
+    private static final int CLAIM_ATTEMPTS = 3;
+
+    private final SeatReservationService reservations;
+
+    public BestSeatFinder(SeatReservationService reservations) {
+        this.reservations = reservations;
+    }
+
+    /**
+     * @param seatType one of {@link AuditoriumLayout#SEAT_TYPES}, or null for any
+     * @return seat indexes of the best block, empty if no row has {@code count} adjacent free seats
+     */
+    public Optional<int[]> find(ShowtimeSeats seats, int count, String seatType) {
+        AuditoriumLayout layout = seats.layout();
+        int type = seatType == null ? RowRunIndex.ANY : AuditoriumLayout.SEAT_TYPES.indexOf(seatType);
+        if (count <= 0 || (seatType != null && type < 0)) return Optional.empty();
+
+        double idealRow = (layout.rowCount() - 1) * SWEET_SPOT;
+        double bestScore = Double.MAX_VALUE;
+        int bestStart = -1;
+        for (int row = 0; row < layout.rowCount(); row++) {
+            double rowCost = Math.abs(row - idealRow) * ROW_WEIGHT;
+            if (rowCost >= bestScore) continue;
+            RowRunIndex.Runs runs = seats.rowRuns().runs(row, type);
+            if (runs.max() < count) continue;
+
+            double center = (layout.rowStart(row) + layout.rowEnd(row) - 1) / 2.0;
+            for (int r = 0; r < runs.start().length; r++) {
+                if (runs.length()[r] < count) continue;
+                // slide the block as close to the centre as the run allows
+                int lo = runs.start()[r];
+                int hi = lo + runs.length()[r] - count;
+                int start = (int) Math.max(lo, Math.min(hi, Math.round(center - (count - 1) / 2.0)));
+                double score = rowCost + Math.abs(start + (count - 1) / 2.0 - center);
+                if (score < bestScore) {
+                    bestScore = score;
+                    bestStart = start;
+                }
+            }
+        }
+        if (bestStart < 0) return Optional.empty();
+        int[] block = new int[count];
+        for (int i = 0; i < count; i++) block[i] = bestStart + i;
+        return Optional.of(block);
+    }
+
+    /** Finds and holds a block, trying again if another customer takes it first. */
+    public SeatReservationService.Result hold(ShowtimeSeats seats, int count, String seatType, Long userId) {
+        long now = System.currentTimeMillis();
+        if (seats.startsAt() <= now) {
+            return SeatReservationService.Result.invalid(SeatReservationService.Outcome.INVALID, "showtime already started");
+        }
+        if (count <= 0 || count > reservations.maxSeatsPerHold()) {
+            return SeatReservationService.Result.invalid(SeatReservationService.Outcome.INVALID,
+                    "between 1 and " + reservations.maxSeatsPerHold() + " seats required");
+        }
+        for (int attempt = 0; attempt < CLAIM_ATTEMPTS; attempt++) {
+            Optional<int[]> block = find(seats, count, seatType);
+            if (block.isEmpty()) break;
+            long[] ids = new long[count];
+            for (int i = 0; i < count; i++) ids[i] = seats.layout().seat(block.get()[i]).id();
+            SeatReservationService.Result result = reservations.claim(seats, block.get(), ids, userId, now);
+            if (result.outcome() != SeatReservationService.Outcome.CONFLICT) return result;
+        }
+        return new SeatReservationService.Result(SeatReservationService.Outcome.CONFLICT, null, List.of(),
+                "no " + count + " adjacent seats available");
+    }
+}
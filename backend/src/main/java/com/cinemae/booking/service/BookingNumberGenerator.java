@@ -0,0 +1,112 @@
+package com.cinemae.booking.service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style booking numbers: 41 bits of milliseconds since 2025-01-01, a 10-bit node id
+ * and a 12-bit sequence, written as 13 Crockford base32 digits plus a Luhn mod 32 check digit
+ * (14 characters, no I/L/O/U). Numbers sort by issue time and never collide as long as no two
+ * running instances share a node id. Issuing is one CAS on a packed (time, sequence) word; a
+ * sequence overflow or a clock that steps back just borrows the next millisecond, so the hot
+ * path never blocks or waits for the clock.
+ */
+public final class BookingNumberGenerator {
+
+    public static final long EPOCH = 1735689600000L; // 2025-01-01T00:00:00Z
+    public static final int NODE_BITS = 10;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    public static final int LENGTH = 14;
+
+    private static final int SEQ_BITS = 12;
+    private static final long SEQ_MASK = (1L << SEQ_BITS) - 1;
+    private static final char[] DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < DIGITS.length; i++) {
+            VALUES[DIGITS[i]] = (byte) i;
+            VALUES[Character.toLowerCase(DIGITS[i])] = (byte) i;
+        }
+    }
+
+    private final long node;
+    private final LongSupplier clock;
+    // (millis since EPOCH) << SEQ_BITS | sequence
+    private final AtomicLong state;
+
+    public BookingNumberGenerator(int node) {
+        this(node, 0, System::currentTimeMillis);
+    }
+
+    /**
+     * @param notBefore epoch millis already used by an earlier owner of this node id; numbers
+     *                  start after it even if the clock is behind
+     */
+    public BookingNumberGenerator(int node, long notBefore, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE) throw new IllegalArgumentException("node id must be 0.." + MAX_NODE);
+        this.node = node;
+        this.clock = clock;
+        this.state = new AtomicLong(Math.max(0, notBefore - EPOCH) << SEQ_BITS | SEQ_MASK);
+    }
+
+    public int node() {
+        return (int) node;
+    }
+
+    /** Epoch millis of the newest number issued (may run ahead of the clock under bursts). */
+    public long lastMillis() {
+        return (state.get() >>> SEQ_BITS) + EPOCH;
+    }
+
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long now = clock.getAsLong() - EPOCH;
+            // same or earlier millisecond: next sequence, carrying into the time bits on overflow
+            long next = now > current >>> SEQ_BITS ? now << SEQ_BITS : current + 1;
+            if (state.compareAndSet(current, next)) {
+                return (next >>> SEQ_BITS) << (NODE_BITS + SEQ_BITS) | node << SEQ_BITS | (next & SEQ_MASK);
+            }
+        }
+    }
+
+    public String next() {
+        return format(nextId());
+    }
+
+    public static String format(long id) {
+        char[] out = new char[LENGTH];
+        int sum = 0;
+        for (int i = LENGTH - 2; i >= 0; i--) {
+            int digit = (int) (id & 31);
+            out[i] = DIGITS[digit];
+            sum += luhn(digit, LENGTH - 2 - i);
+            id >>>= 5;
+        }
+        out[LENGTH - 1] = DIGITS[(32 - sum % 32) % 32];
+        return new String(out);
+    }
+
+    /** Right length, alphabet and check digit; catches typos before any lookup. */
+    public static boolean isWellFormed(String number) {
+        if (number == null || number.length() != LENGTH) return false;
+        int sum = 0;
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            char c = number.charAt(i);
+            int digit = c < 128 ? VALUES[c] : -1;
+            if (digit < 0) return false;
+            sum += luhn(digit, LENGTH - 2 - i);
+        }
+        return sum % 32 == 0;
+    }
+
+    // Luhn mod N: doubled at even distances left of the check digit's slot (-1 is the check digit itself)
+    private static int luhn(int digit, int position) {
+        if ((position & 1) == 1) return digit;
+        int doubled = digit * 2;
+        return doubled / 32 + doubled % 32;
+    }
+}
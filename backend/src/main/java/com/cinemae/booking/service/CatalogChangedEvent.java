@@ -0,0 +1,9 @@
+package com.cinemae.booking.service;
+
+/**
+ * Published when the movie catalog changes so derived in-memory indexes can refresh; the
+ * catalog caches are dropped and the MOVIES ETag bumped right after it has been handled.
+ * {@code movieId} is null when the whole catalog should be considered stale.
+ */
+public record CatalogChangedEvent(Long movieId) {
+}
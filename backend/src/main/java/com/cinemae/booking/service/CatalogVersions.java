@@ -0,0 +1,35 @@
+package com.cinemae.booking.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change counters for tables behind cacheable GETs. Every write path bumps the counter of the
+ * table it touches, so a request carrying the current ETag can be answered with 304 before
+ * any query or serialization happens. Counters live in memory; the boot epoch in each tag
+ * keeps tags from a previous run from matching after a restart.
+ */
+@Service
+public class CatalogVersions {
+
+    public enum Table { MOVIES, PROMOTIONS }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Table, AtomicLong> counters = new EnumMap<>(Table.class);
+
+    public CatalogVersions() {
+        for (Table table : Table.values()) counters.put(table, new AtomicLong());
+    }
+
+    public void bump(Table table) {
+        counters.get(table).incrementAndGet();
+    }
+
+    // weak: the same version may be served with different encodings
+    public String etag(Table table) {
+        return "W/\"" + table.name().charAt(0) + epoch + "-" + Long.toString(counters.get(table).get(), 36) + "\"";
+    }
+}
@@ -0,0 +1,177 @@
+package com.cinemae.booking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Poster and still images on local disk. Resized variants are written once at ingest
+ * (startup, or {@link #ingest()} after new files land), so requests only ever stat and
+ * stream an existing file.
+ */
+@Service
+public class MediaStore {
+
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg", "jpeg", "image/jpeg", "png", "image/png", "gif", "image/gif", "webp", "image/webp");
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final Path root;
+    private final Path variants;
+    private final int[] widths;
+
+    public MediaStore(@Value("${app.media.root:../frontend/public/images}") String root,
+                      @Value("${app.media.variants:media-variants}") String variants,
+                      @Value("${app.media.widths:240,480}") int[] widths) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.variants = Paths.get(variants).toAbsolutePath().normalize();
+        this.widths = widths.clone();
+        Arrays.sort(this.widths);
+    }
+
+    /**
+     * A servable file. The ETag changes whenever the file is replaced, so it doubles as a
+     * cache-busting version for URLs.
+     */
+    public record MediaFile(Path path, String contentType, long length, long lastModified, String etag) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            int written = ingest();
+            if (written > 0) System.out.println("Media ingest wrote " + written + " image variants");
+        } catch (Exception e) {
+            System.err.println("Media ingest failed, originals will be served: " + e.getMessage());
+        }
+    }
+
+    /** Generates missing or outdated resized variants; returns how many were written. */
+    public synchronized int ingest() throws IOException {
+        if (!Files.isDirectory(root)) return 0;
+        Files.createDirectories(variants);
+        int written = 0;
+        try (Stream<Path> files = Files.list(root)) {
+            for (Path source : files.filter(Files::isRegularFile).toList()) {
+                String name = source.getFileName().toString();
+                if (!isImage(name)) continue;
+                long sourceModified = Files.getLastModifiedTime(source).toMillis();
+                BufferedImage image = null;
+                for (int width : widths) {
+                    Path target = variants.resolve(variantName(name, width));
+                    if (Files.exists(target) && Files.getLastModifiedTime(target).toMillis() >= sourceModified) continue;
+                    if (image == null) image = ImageIO.read(source.toFile());
+                    // no upscaling; narrower originals are served as-is
+                    if (image == null || image.getWidth() <= width) break;
+                    writeResized(image, width, extension(name), target);
+                    written++;
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Resolves a file by name, preferring the smallest variant at least {@code width} wide.
+     * Empty for unknown names and anything that would escape the media root.
+     */
+    public Optional<MediaFile> resolve(String name, Integer width) throws IOException {
+        if (name == null || !SAFE_NAME.matcher(name).matches() || !isImage(name)) return Optional.empty();
+        Path original = root.resolve(name).normalize();
+        if (!original.startsWith(root)) return Optional.empty();
+
+        if (width != null) {
+            for (int w : widths) {
+                if (w < width) continue;
+                Optional<MediaFile> variant = stat(variants.resolve(variantName(name, w)), name);
+                if (variant.isPresent()) return variant;
+                break;
+            }
+        }
+        return stat(original, name);
+    }
+
+    private Optional<MediaFile> stat(Path path, String name) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        if (!attrs.isRegularFile()) return Optional.empty();
+        long modified = attrs.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(attrs.size()) + "-" + Long.toHexString(modified) + "\"";
+        return Optional.of(new MediaFile(path, CONTENT_TYPES.get(extension(name)), attrs.size(), modified, etag));
+    }
+
+    private static void writeResized(BufferedImage image, int width, String ext, Path target) throws IOException {
+        int height = Math.max(1, Math.round(image.getHeight() * (width / (float) image.getWidth())));
+        boolean alpha = image.getColorModel().hasAlpha() && !"jpg".equals(ext) && !"jpeg".equals(ext);
+        BufferedImage scaled = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+
+        // write next to the target and move into place so readers never see a partial file
+        Path tmp = Files.createTempFile(target.getParent(), "variant", ".tmp");
+        try {
+            String format = "jpeg".equals(ext) ? "jpg" : ext;
+            if ("jpg".equals(format)) {
+                writeJpeg(scaled, tmp);
+            } else if (!ImageIO.write(scaled, format, tmp.toFile())) {
+                throw new IOException("no ImageIO writer for " + format);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String variantName(String name, int width) {
+        int dot = name.lastIndexOf('.');
+        return name.substring(0, dot) + "@" + width + "w" + name.substring(dot);
+    }
+
+    private static boolean isImage(String name) {
+        return CONTENT_TYPES.containsKey(extension(name));
+    }
+
+    private static String extension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+}
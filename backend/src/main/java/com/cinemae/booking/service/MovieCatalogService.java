@@ -0,0 +1,439 @@
+package com.cinemae.booking.service;
+
+import com.cinemae.booking.api.MovieDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Read side of the movie catalog. Lookups by id and list pages are served from bounded,
+ * TTL-evicting caches so repeat catalog reads never borrow a pooled connection; any code
+ * that writes to {@code movies} must call {@link #invalidateMovie} or {@link #invalidateAll}.
+ */
+@Service
+public class MovieCatalogService {
+
+    // InnoDB ignores tokens shorter than innodb_ft_min_token_size (default 3)
+    private static final int FULLTEXT_MIN_TOKEN = 3;
+
+    // InnoDB default stopword list; a required (+) stopword would match nothing
+    private static final Set<String> FULLTEXT_STOPWORDS = Set.of(
+            "a", "about", "an", "are", "as", "at", "be", "by", "com", "de", "en", "for", "from", "how",
+            "i", "in", "is", "it", "la", "of", "on", "or", "that", "the", "this", "to", "was", "what",
+            "when", "where", "who", "will", "with", "und", "www");
+
+    private static final String MATCH = "MATCH(title, synopsis) AGAINST (? IN BOOLEAN MODE)";
+    private static final String COLUMNS = "id, title, mpaa_rating, synopsis, trailer_video_url, trailer_image_url";
+
+    private final JdbcTemplate jdbc;
+    private final ApplicationEventPublisher events;
+    private final MovieFacetIndex facetIndex;
+    private final CatalogVersions versions;
+
+    // Optional.empty() caches "movie not found" so unknown ids don't hit MySQL either
+    private final Cache<Long, Optional<MovieDto>> movies;
+    private final Cache<MovieQuery, Map<String, Object>> pages;
+    // totals for cursor clients are informational, a recent count is good enough
+    private final Cache<String, Integer> counts;
+
+    public MovieCatalogService(JdbcTemplate jdbc, ApplicationEventPublisher events, MovieFacetIndex facetIndex,
+                               CatalogVersions versions,
+                               @Value("${app.catalog.cache.max-movies:10000}") long maxMovies,
+                               @Value("${app.catalog.cache.max-pages:2000}") long maxPages,
+                               @Value("${app.catalog.cache.ttl:10m}") Duration ttl) {
+        this.jdbc = jdbc;
+        this.events = events;
+        this.versions = versions;
+        this.facetIndex = facetIndex;
+        this.movies = Caffeine.newBuilder().maximumSize(maxMovies).expireAfterWrite(ttl).recordStats().build();
+        this.pages = Caffeine.newBuilder().maximumSize(maxPages).expireAfterWrite(ttl).recordStats().build();
+        this.counts = Caffeine.newBuilder().maximumSize(256).expireAfterWrite(Duration.ofMinutes(1)).build();
+    }
+
+    /**
+     * List parameters; also the page cache key, so {@code q} is normalized before it gets here.
+     * {@code after} non-null selects keyset mode (empty string = first page).
+     */
+    public record MovieQuery(String q, int page, int size, String after, boolean includeTotal,
+                             MovieFacetIndex.Filter filter, boolean facets) {
+
+        public static MovieQuery of(String q, int page, int size, String after, boolean includeTotal) {
+            return of(q, page, size, after, includeTotal, new MovieFacetIndex.Filter(null, null, null, null), false);
+        }
+
+        public static MovieQuery of(String q, int page, int size, String after, boolean includeTotal,
+                                    MovieFacetIndex.Filter filter, boolean facets) {
+            // the page number is meaningless in keyset mode, don't let it split cache entries
+            return new MovieQuery(normalize(q), after != null ? 0 : Math.max(page, 0), size <= 0 ? 12 : size,
+                    after == null ? null : after.trim(), after != null && includeTotal,
+                    new MovieFacetIndex.Filter(normalize(filter.category()), normalize(filter.rating()),
+                            normalize(filter.director()), normalize(filter.actor())), facets);
+        }
+
+        private static String normalize(String s) {
+            return s == null || s.isBlank() ? null : s.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public Optional<MovieDto> findById(long id) {
+        return movies.get(id, key -> {
+            List<MovieDto> rows = jdbc.query("SELECT " + COLUMNS + " FROM movies WHERE id = ?", MovieDto.ROW_MAPPER, key);
+            return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+        });
+    }
+
+    /**
+     * Multi-get: cached ids are answered from memory, the rest with a single IN (...) query.
+     * Unknown ids are simply absent from the returned map (iteration follows {@code ids}).
+     */
+    public Map<Long, MovieDto> findByIds(Collection<Long> ids) {
+        Map<Long, Optional<MovieDto>> found = movies.getAll(new LinkedHashSet<>(ids), this::loadByIds);
+        Map<Long, MovieDto> out = new LinkedHashMap<>();
+        found.forEach((id, movie) -> movie.ifPresent(m -> out.put(id, m)));
+        return out;
+    }
+
+    private Map<Long, Optional<MovieDto>> loadByIds(Set<? extends Long> ids) {
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<MovieDto> rows = jdbc.query("SELECT " + COLUMNS + " FROM movies WHERE id IN (" + placeholders + ")",
+                MovieDto.ROW_MAPPER, ids.toArray());
+        Map<Long, Optional<MovieDto>> loaded = new HashMap<>();
+        for (Long id : ids) loaded.put(id, Optional.empty());
+        for (MovieDto movie : rows) loaded.put(movie.id(), Optional.of(movie));
+        return loaded;
+    }
+
+    public Map<String, Object> list(MovieQuery query) {
+        // concurrent misses for the same page share one query
+        return pages.get(query, this::loadPage);
+    }
+
+    // --- invalidation hooks for catalog writers ---
+
+    // Derived indexes rebuild first (listeners run synchronously); caches are dropped afterwards
+    // so nothing cached against the old index survives. The ETag moves last: a client that sees
+    // the new tag can no longer be served a page cached before the change.
+    public void invalidateMovie(long id) {
+        try {
+            events.publishEvent(new CatalogChangedEvent(id));
+        } finally {
+            movies.invalidate(id);
+            // a single changed row can move between any pages, so drop them all
+            pages.invalidateAll();
+            counts.invalidateAll();
+            versions.bump(CatalogVersions.Table.MOVIES);
+        }
+    }
+
+    public void invalidateAll() {
+        try {
+            events.publishEvent(new CatalogChangedEvent(null));
+        } finally {
+            movies.invalidateAll();
+            pages.invalidateAll();
+            counts.invalidateAll();
+            versions.bump(CatalogVersions.Table.MOVIES);
+        }
+    }
+
+    public Map<String, Object> cacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("movies", describe(movies.stats(), movies.estimatedSize()));
+        stats.put("pages", describe(pages.stats(), pages.estimatedSize()));
+        return stats;
+    }
+
+    private static Map<String, Object> describe(CacheStats s, long size) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("size", size);
+        m.put("hits", s.hitCount());
+        m.put("misses", s.missCount());
+        m.put("hitRate", s.hitRate());
+        m.put("evictions", s.evictionCount());
+        m.put("loadFailures", s.loadFailureCount());
+        return m;
+    }
+
+    // --- loading ---
+
+    private Map<String, Object> loadPage(MovieQuery query) {
+        if (!query.filter().isEmpty() || query.facets()) {
+            return Collections.unmodifiableMap(facetPage(query));
+        }
+
+        String where = "";
+        String searchMode = null;
+        String booleanQuery = null;
+        List<Object> params = new ArrayList<>();
+
+        if (query.q() != null) {
+            booleanQuery = toBooleanQuery(query.q());
+            if (booleanQuery != null) {
+                // served by ft_movies_title_synopsis, most relevant first
+                where = " WHERE " + MATCH;
+                params.add(booleanQuery);
+                searchMode = "fulltext";
+            } else {
+                // too short for the fulltext index: anchored title prefix instead of a '%q%' scan
+                where = " WHERE title LIKE ?";
+                params.add(escapeLike(query.q()) + "%");
+                searchMode = "prefix";
+            }
+        }
+
+        Map<String, Object> resp = query.after() != null
+                ? cursorPage(where, params, booleanQuery, query)
+                : offsetPage(where, params, booleanQuery, query);
+        if (searchMode != null) resp.put("searchMode", searchMode);
+        return Collections.unmodifiableMap(resp);
+    }
+
+    private Map<String, Object> offsetPage(String where, List<Object> params, String booleanQuery, MovieQuery query) {
+        int page = query.page();
+        int size = query.size();
+
+        // total count
+        String countSql = "SELECT COUNT(*) FROM movies" + where;
+        Integer total = jdbc.queryForObject(countSql, Integer.class, params.toArray());
+        if (total == null) total = 0;
+
+        // fetch page
+        int offset = page * size;
+        List<Object> selectParams = new ArrayList<>();
+        String sql = selectSql(booleanQuery, selectParams) + where + orderBy(booleanQuery) + " LIMIT ? OFFSET ?";
+
+        // select-list params come first, then the where clause, then pagination
+        selectParams.addAll(params);
+        selectParams.add(size);
+        selectParams.add(offset);
+
+        List<MovieDto> rows = remember(booleanQuery != null
+                ? toMovies(jdbc.query(sql, SCORED_ROW_MAPPER, selectParams.toArray()))
+                : jdbc.query(sql, MovieDto.ROW_MAPPER, selectParams.toArray()));
+
+        // build response
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("page", page);
+        resp.put("size", size);
+        resp.put("totalElements", total);
+        resp.put("totalPages", (int) Math.ceil(total / (double) size));
+        resp.put("content", rows);
+
+        return resp;
+    }
+
+    // Seeks past the last row of the previous page instead of skipping OFFSET rows, so every
+    // page costs the same and no COUNT(*) is needed to know whether there is a next page.
+    private Map<String, Object> cursorPage(String where, List<Object> params, String booleanQuery, MovieQuery query) {
+        int size = query.size();
+        Map<String, Object> resp = new LinkedHashMap<>();
+        Cursor cursor;
+        try {
+            cursor = Cursor.decode(query.after(), booleanQuery != null);
+        } catch (IllegalArgumentException e) {
+            resp.put("ok", false);
+            resp.put("message", "invalid cursor");
+            return resp;
+        }
+
+        List<Object> selectParams = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(selectSql(booleanQuery, selectParams)).append(where);
+        selectParams.addAll(params);
+        if (cursor != null) {
+            sql.append(where.isEmpty() ? " WHERE " : " AND ");
+            if (booleanQuery != null) {
+                sql.append("(").append(MATCH).append(" < ? OR (").append(MATCH).append(" = ? AND id > ?))");
+                Collections.addAll(selectParams, booleanQuery, cursor.score(), booleanQuery, cursor.score(), cursor.id());
+            } else {
+                sql.append("id > ?");
+                selectParams.add(cursor.id());
+            }
+        }
+        // one extra row tells us whether another page exists
+        sql.append(orderBy(booleanQuery)).append(" LIMIT ?");
+        selectParams.add(size + 1);
+
+        List<ScoredMovie> rows = booleanQuery != null
+                ? jdbc.query(sql.toString(), SCORED_ROW_MAPPER, selectParams.toArray())
+                : jdbc.query(sql.toString(), UNSCORED_ROW_MAPPER, selectParams.toArray());
+        boolean hasMore = rows.size() > size;
+        if (hasMore) rows = rows.subList(0, size);
+
+        String nextCursor = null;
+        if (hasMore) {
+            ScoredMovie last = rows.get(rows.size() - 1);
+            nextCursor = new Cursor(last.movie().id(), last.score()).encode(booleanQuery != null);
+        }
+
+        resp.put("size", size);
+        resp.put("hasMore", hasMore);
+        resp.put("nextCursor", nextCursor);
+        if (query.includeTotal()) resp.put("totalElements", approximateCount(where, params));
+        resp.put("content", remember(toMovies(rows)));
+        return resp;
+    }
+
+    // Filtered browsing: the facet index picks and counts the ids, rows come from the by-id cache.
+    // Results are in id order; a text query narrows the candidates but doesn't rank them here.
+    private Map<String, Object> facetPage(MovieQuery query) {
+        Map<String, Object> resp = new LinkedHashMap<>();
+        Cursor cursor = null;
+        if (query.after() != null) {
+            try {
+                cursor = Cursor.decode(query.after(), false);
+            } catch (IllegalArgumentException e) {
+                resp.put("ok", false);
+                resp.put("message", "invalid cursor");
+                return resp;
+            }
+        }
+
+        List<Long> textMatches = query.q() != null ? matchingIds(query.q()) : null;
+        MovieFacetIndex.Result result = facetIndex.query(query.filter(), textMatches, query.facets());
+        long[] ids = result.ids();
+        int size = query.size();
+
+        int from;
+        if (query.after() == null) {
+            from = (int) Math.min((long) query.page() * size, ids.length);
+        } else if (cursor == null) {
+            from = 0;
+        } else {
+            int pos = Arrays.binarySearch(ids, cursor.id());
+            from = pos >= 0 ? pos + 1 : -pos - 1;
+        }
+        int to = Math.min(from + size, ids.length);
+
+        List<Long> pageIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) pageIds.add(ids[i]);
+        List<MovieDto> rows = new ArrayList<>(findByIds(pageIds).values());
+
+        if (query.after() == null) {
+            resp.put("page", query.page());
+            resp.put("size", size);
+            resp.put("totalElements", ids.length);
+            resp.put("totalPages", (int) Math.ceil(ids.length / (double) size));
+        } else {
+            boolean hasMore = to < ids.length;
+            resp.put("size", size);
+            resp.put("hasMore", hasMore);
+            resp.put("nextCursor", hasMore && to > 0 ? new Cursor(ids[to - 1], 0).encode(false) : null);
+            // exact and free here, so no need to honour includeTotal
+            resp.put("totalElements", ids.length);
+        }
+        if (result.facets() != null) resp.put("facets", result.facets());
+        resp.put("content", List.copyOf(rows));
+        return resp;
+    }
+
+    // ids matching the text query, same matching rules as the unfiltered search
+    private List<Long> matchingIds(String q) {
+        String booleanQuery = toBooleanQuery(q);
+        return booleanQuery != null
+                ? jdbc.queryForList("SELECT id FROM movies WHERE " + MATCH, Long.class, booleanQuery)
+                : jdbc.queryForList("SELECT id FROM movies WHERE title LIKE ?", Long.class, escapeLike(q) + "%");
+    }
+
+    // list rows double as by-id entries, so browsing warms the detail page
+    private List<MovieDto> remember(List<MovieDto> rows) {
+        for (MovieDto movie : rows) {
+            movies.put(movie.id(), Optional.of(movie));
+        }
+        return List.copyOf(rows);
+    }
+
+    // fulltext selects carry the relevance score next to the catalog columns; keyset pages need it
+    private record ScoredMovie(MovieDto movie, double score) {}
+
+    private static final RowMapper<ScoredMovie> SCORED_ROW_MAPPER =
+            (rs, rowNum) -> new ScoredMovie(MovieDto.ROW_MAPPER.mapRow(rs, rowNum), rs.getDouble("score"));
+
+    private static final RowMapper<ScoredMovie> UNSCORED_ROW_MAPPER =
+            (rs, rowNum) -> new ScoredMovie(MovieDto.ROW_MAPPER.mapRow(rs, rowNum), 0);
+
+    private static List<MovieDto> toMovies(List<ScoredMovie> rows) {
+        List<MovieDto> out = new ArrayList<>(rows.size());
+        for (ScoredMovie row : rows) out.add(row.movie());
+        return out;
+    }
+
+    private int approximateCount(String where, List<Object> params) {
+        return counts.get(where + params, key -> {
+            Integer total = jdbc.queryForObject("SELECT COUNT(*) FROM movies" + where, Integer.class, params.toArray());
+            return total == null ? 0 : total;
+        });
+    }
+
+    private static String selectSql(String booleanQuery, List<Object> selectParams) {
+        String columns = COLUMNS;
+        if (booleanQuery != null) {
+            columns += ", " + MATCH + " AS score";
+            selectParams.add(booleanQuery);
+        }
+        return "SELECT " + columns + " FROM movies";
+    }
+
+    private static String orderBy(String booleanQuery) {
+        return booleanQuery != null ? " ORDER BY score DESC, id ASC" : " ORDER BY id ASC";
+    }
+
+    // Turns free text into a boolean-mode query: every usable word is required and the
+    // last one is a prefix so partially typed words still match while the user types.
+    // Returns null when no word is long enough for the fulltext index.
+    static String toBooleanQuery(String q) {
+        List<String> words = new ArrayList<>();
+        for (String token : q.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() >= FULLTEXT_MIN_TOKEN && !FULLTEXT_STOPWORDS.contains(token)) {
+                words.add(token);
+            }
+        }
+        if (words.isEmpty()) return null;
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words.size(); i++) {
+            if (i > 0) sb.append(' ');
+            sb.append('+').append(words.get(i));
+        }
+        // only treat the last word as a prefix if the user is still typing it
+        if (Character.isLetterOrDigit(q.charAt(q.length() - 1))) sb.append('*');
+        return sb.toString();
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // Opaque page token: the sort key of the last row handed out (relevance score and id for
+    // fulltext searches, id otherwise), base64url encoded.
+    record Cursor(long id, double score) {
+
+        String encode(boolean scored) {
+            String raw = scored ? score + ":" + id : Long.toString(id);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // returns null for an empty token, i.e. the first page
+        static Cursor decode(String token, boolean scored) {
+            if (token.isBlank()) return null;
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int sep = raw.indexOf(':');
+                if (scored != (sep >= 0)) throw new IllegalArgumentException("cursor does not match query");
+                return scored
+                        ? new Cursor(Long.parseLong(raw.substring(sep + 1)), Double.parseDouble(raw.substring(0, sep)))
+                        : new Cursor(Long.parseLong(raw), 0);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("malformed cursor", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.cinemae.booking.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Precomputed bitsets per facet value (category, MPAA rating, director, actor) over dense
+ * movie ordinals. Filtering is a handful of word-wise ANDs and facet counts are popcounts
+ * over the result, so catalog browsing needs no JOIN / GROUP BY queries.
+ */
+@Service
+public class MovieFacetIndex {
+
+    private static final int TOP_PEOPLE = 10;
+
+    private final JdbcTemplate jdbc;
+    private volatile Snapshot snapshot;
+
+    public MovieFacetIndex(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Requested filters; comma-separated values within one facet are OR-ed, facets are AND-ed. */
+    public record Filter(String category, String rating, String director, String actor) {
+
+        public boolean isEmpty() {
+            return category == null && rating == null && director == null && actor == null;
+        }
+    }
+
+    /** Matching movie ids in ascending order, and facet counts over them when requested. */
+    public record Result(long[] ids, Map<String, Object> facets) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            System.err.println("Facet index not built at startup, will retry on first use: " + e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        rebuild();
+    }
+
+    /**
+     * @param restrictTo optional candidate ids (e.g. text search hits) to intersect with
+     */
+    public Result query(Filter filter, Collection<Long> restrictTo, boolean withFacets) {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null) rebuild();
+                s = snapshot;
+            }
+        }
+
+        BitSet result = new BitSet(s.ids.length);
+        result.set(0, s.ids.length);
+        and(result, s.categories, filter.category());
+        and(result, s.ratings, filter.rating());
+        and(result, s.directors, filter.director());
+        and(result, s.actors, filter.actor());
+        if (restrictTo != null) {
+            BitSet allowed = new BitSet(s.ids.length);
+            for (Long id : restrictTo) {
+                int ord = Arrays.binarySearch(s.ids, id);
+                if (ord >= 0) allowed.set(ord);
+            }
+            result.and(allowed);
+        }
+
+        long[] ids = new long[result.cardinality()];
+        int n = 0;
+        for (int ord = result.nextSetBit(0); ord >= 0; ord = result.nextSetBit(ord + 1)) {
+            ids[n++] = s.ids[ord];
+        }
+        return new Result(ids, withFacets ? facets(s, result) : null);
+    }
+
+    // --- facet counts ---
+
+    private static Map<String, Object> facets(Snapshot s, BitSet result) {
+        Map<String, Object> facets = new LinkedHashMap<>();
+        facets.put("category", counts(s.categories, s.categoryNames, result));
+        facets.put("rating", counts(s.ratings, s.ratingNames, result));
+        facets.put("director", topPeople(s.directors, s, result));
+        facets.put("actor", topPeople(s.actors, s, result));
+        return facets;
+    }
+
+    private static Map<String, Integer> counts(Map<String, BitSet> index, Map<String, String> labels, BitSet result) {
+        Map<String, Integer> counts = new TreeMap<>();
+        index.forEach((key, bits) -> {
+            int count = andCardinality(bits, result);
+            if (count > 0) counts.put(labels.get(key), count);
+        });
+        return counts;
+    }
+
+    private static List<Map<String, Object>> topPeople(Map<String, BitSet> index, Snapshot s, BitSet result) {
+        List<Map<String, Object>> people = new ArrayList<>();
+        index.forEach((key, bits) -> {
+            int count = andCardinality(bits, result);
+            if (count > 0) {
+                Map<String, Object> p = new LinkedHashMap<>();
+                p.put("id", Long.parseLong(key));
+                p.put("name", s.personNames.get(Long.parseLong(key)));
+                p.put("count", count);
+                people.add(p);
+            }
+        });
+        people.sort(Comparator.comparingInt((Map<String, Object> p) -> (Integer) p.get("count")).reversed());
+        return people.size() > TOP_PEOPLE ? new ArrayList<>(people.subList(0, TOP_PEOPLE)) : people;
+    }
+
+    private static int andCardinality(BitSet a, BitSet b) {
+        BitSet both = (BitSet) a.clone();
+        both.and(b);
+        return both.cardinality();
+    }
+
+    private static void and(BitSet result, Map<String, BitSet> index, String values) {
+        if (values == null) return;
+        BitSet any = new BitSet();
+        for (String v : values.split(",")) {
+            BitSet bits = index.get(v.trim().toLowerCase(Locale.ROOT));
+            if (bits != null) any.or(bits);
+        }
+        result.and(any);
+    }
+
+    // --- building ---
+
+    public synchronized void rebuild() {
+        List<Long> idList = jdbc.queryForList("SELECT id FROM movies ORDER BY id", Long.class);
+        long[] ids = idList.stream().mapToLong(Long::longValue).toArray();
+
+        Snapshot s = new Snapshot(ids);
+        jdbc.query("SELECT id, mpaa_rating FROM movies WHERE mpaa_rating IS NOT NULL", rs -> {
+            s.add(s.ratings, s.ratingNames, rs.getString("mpaa_rating"), rs.getLong("id"));
+        });
+        jdbc.query("SELECT mc.movie_id, c.name FROM movie_categories mc JOIN categories c ON c.id = mc.category_id", rs -> {
+            s.add(s.categories, s.categoryNames, rs.getString("name"), rs.getLong("movie_id"));
+        });
+        jdbc.query("SELECT mp.movie_id, mp.person_id, mp.role, p.full_name FROM movie_people mp "
+                + "JOIN people p ON p.id = mp.person_id WHERE mp.role IN ('DIRECTOR', 'ACTOR')", rs -> {
+            long personId = rs.getLong("person_id");
+            s.personNames.put(personId, rs.getString("full_name"));
+            Map<String, BitSet> index = "DIRECTOR".equals(rs.getString("role")) ? s.directors : s.actors;
+            s.add(index, null, Long.toString(personId), rs.getLong("movie_id"));
+        });
+        snapshot = s;
+    }
+
+    private static final class Snapshot {
+        // sorted ascending; a movie's position is its bit in every facet bitset
+        final long[] ids;
+        final Map<String, BitSet> categories = new HashMap<>();
+        final Map<String, String> categoryNames = new HashMap<>();
+        final Map<String, BitSet> ratings = new HashMap<>();
+        final Map<String, String> ratingNames = new HashMap<>();
+        // keyed by person id
+        final Map<String, BitSet> directors = new HashMap<>();
+        final Map<String, BitSet> actors = new HashMap<>();
+        final Map<Long, String> personNames = new HashMap<>();
+
+        Snapshot(long[] ids) {
+            this.ids = ids;
+        }
+
+        void add(Map<String, BitSet> index, Map<String, String> labels, String value, long movieId) {
+            int ord = Arrays.binarySearch(ids, movieId);
+            if (ord < 0) return;
+            String key = value.toLowerCase(Locale.ROOT);
+            index.computeIfAbsent(key, k -> new BitSet(ids.length)).set(ord);
+            if (labels != null) labels.putIfAbsent(key, value);
+        }
+    }
+}
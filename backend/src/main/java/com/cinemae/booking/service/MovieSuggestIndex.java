@@ -0,0 +1,280 @@
+package com.cinemae.booking.service;
+
+import com.cinemae.booking.api.SuggestionDto;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory type-ahead over movie titles and people names. Queries run against an immutable
+ * snapshot (word-prefix table plus trigram postings) and never touch JDBC; catalog changes
+ * reload only the affected movie and swap in a rebuilt snapshot.
+ */
+@Service
+public class MovieSuggestIndex {
+
+    private static final int MAX_LIMIT = 20;
+
+    private final JdbcTemplate jdbc;
+
+    // source data, guarded by "this"; snapshots are derived from it
+    private final Map<Long, String> titles = new HashMap<>();
+    private final Map<Long, String> personNames = new HashMap<>();
+    private final Map<Long, Set<Long>> personMovies = new HashMap<>();
+    private volatile boolean loaded;
+
+    // tickets sold per movie, bumped by the order pipeline between rebuilds
+    private final ConcurrentHashMap<Long, LongAdder> popularity = new ConcurrentHashMap<>();
+
+    private volatile Snapshot snapshot = Snapshot.build(List.of());
+
+    public MovieSuggestIndex(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reloadAll();
+        } catch (Exception e) {
+            System.err.println("Suggest index not built at startup, will retry on first use: " + e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.movieId() == null) {
+            reloadAll();
+        } else {
+            reloadMovie(event.movieId());
+        }
+    }
+
+    public List<SuggestionDto> suggest(String q, int limit) {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) reloadAll();
+            }
+        }
+        String query = normalize(q);
+        if (query.isEmpty()) return List.of();
+        return snapshot.search(query, Math.min(Math.max(limit, 1), MAX_LIMIT), popularity);
+    }
+
+    public void recordPopularity(long movieId, long tickets) {
+        popularity.computeIfAbsent(movieId, id -> new LongAdder()).add(tickets);
+    }
+
+    // --- loading ---
+
+    public synchronized void reloadAll() {
+        Map<Long, String> newTitles = new HashMap<>();
+        jdbc.query("SELECT id, title FROM movies", rs -> {
+            newTitles.put(rs.getLong("id"), rs.getString("title"));
+        });
+        Map<Long, String> newNames = new HashMap<>();
+        Map<Long, Set<Long>> newPersonMovies = new HashMap<>();
+        jdbc.query("SELECT p.id, p.full_name, mp.movie_id FROM people p JOIN movie_people mp ON mp.person_id = p.id", rs -> {
+            long personId = rs.getLong("id");
+            newNames.put(personId, rs.getString("full_name"));
+            newPersonMovies.computeIfAbsent(personId, id -> new TreeSet<>()).add(rs.getLong("movie_id"));
+        });
+        popularity.clear();
+        jdbc.query("SELECT s.movie_id, COUNT(*) AS sold FROM tickets t JOIN showtimes s ON s.id = t.showtime_id GROUP BY s.movie_id", rs -> {
+            recordPopularity(rs.getLong("movie_id"), rs.getLong("sold"));
+        });
+
+        titles.clear();
+        titles.putAll(newTitles);
+        personNames.clear();
+        personNames.putAll(newNames);
+        personMovies.clear();
+        personMovies.putAll(newPersonMovies);
+        loaded = true;
+        rebuild();
+    }
+
+    private synchronized void reloadMovie(long movieId) {
+        if (!loaded) return;
+        List<String> title = jdbc.queryForList("SELECT title FROM movies WHERE id = ?", String.class, movieId);
+        if (title.isEmpty()) {
+            titles.remove(movieId);
+        } else {
+            titles.put(movieId, title.get(0));
+        }
+
+        // re-attach this movie's cast and crew
+        personMovies.values().forEach(movies -> movies.remove(movieId));
+        jdbc.query("SELECT p.id, p.full_name FROM people p JOIN movie_people mp ON mp.person_id = p.id WHERE mp.movie_id = ?", rs -> {
+            long personId = rs.getLong("id");
+            personNames.put(personId, rs.getString("full_name"));
+            personMovies.computeIfAbsent(personId, id -> new TreeSet<>()).add(movieId);
+        }, movieId);
+        personMovies.values().removeIf(Set::isEmpty);
+        personNames.keySet().retainAll(personMovies.keySet());
+        rebuild();
+    }
+
+    private void rebuild() {
+        List<Entry> entries = new ArrayList<>(titles.size() + personNames.size());
+        titles.forEach((id, title) -> entries.add(new Entry(true, id, title, normalize(title), null)));
+        personNames.forEach((id, name) -> entries.add(
+                new Entry(false, id, name, normalize(name), List.copyOf(personMovies.get(id)))));
+        snapshot = Snapshot.build(entries);
+    }
+
+    // lower case, punctuation folded to single spaces
+    static String normalize(String s) {
+        if (s == null) return "";
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean space = true;
+        for (int i = 0; i < s.length(); i++) {
+            char c = Character.toLowerCase(s.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') sb.setLength(len - 1);
+        return sb.toString();
+    }
+
+    private record Entry(boolean movie, long id, String label, String key, List<Long> movieIds) {}
+
+    private static final class Snapshot {
+        private final Entry[] entries;
+        // every word of every entry, sorted, for short (< 3 char) prefix lookups
+        private final String[] words;
+        private final int[] wordEntry;
+        // trigram -> ascending entry positions
+        private final Map<Long, int[]> trigrams;
+
+        private Snapshot(Entry[] entries, String[] words, int[] wordEntry, Map<Long, int[]> trigrams) {
+            this.entries = entries;
+            this.words = words;
+            this.wordEntry = wordEntry;
+            this.trigrams = trigrams;
+        }
+
+        static Snapshot build(List<Entry> source) {
+            Entry[] entries = source.toArray(new Entry[0]);
+
+            List<Object[]> wordRefs = new ArrayList<>();
+            Map<Long, List<Integer>> postings = new HashMap<>();
+            for (int i = 0; i < entries.length; i++) {
+                String key = entries[i].key();
+                for (String word : key.split(" ")) {
+                    if (!word.isEmpty()) wordRefs.add(new Object[]{word, i});
+                }
+                for (int p = 0; p + 3 <= key.length(); p++) {
+                    List<Integer> list = postings.computeIfAbsent(trigram(key, p), t -> new ArrayList<>());
+                    // entries are visited in order, so each list stays sorted and deduplicated
+                    if (list.isEmpty() || list.get(list.size() - 1) != i) list.add(i);
+                }
+            }
+            wordRefs.sort(Comparator.comparing(ref -> (String) ref[0]));
+            String[] words = new String[wordRefs.size()];
+            int[] wordEntry = new int[wordRefs.size()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = (String) wordRefs.get(i)[0];
+                wordEntry[i] = (Integer) wordRefs.get(i)[1];
+            }
+            Map<Long, int[]> trigrams = new HashMap<>(postings.size() * 2);
+            postings.forEach((t, list) -> trigrams.put(t, list.stream().mapToInt(Integer::intValue).toArray()));
+            return new Snapshot(entries, words, wordEntry, trigrams);
+        }
+
+        List<SuggestionDto> search(String query, int limit, Map<Long, LongAdder> popularity) {
+            int[] candidates = query.length() < 3 ? wordPrefixMatches(query) : trigramMatches(query);
+            if (candidates.length == 0) return List.of();
+
+            List<Scored> hits = new ArrayList<>();
+            for (int idx : candidates) {
+                Entry e = entries[idx];
+                int pos = e.key().indexOf(query);
+                if (pos < 0) continue;
+                // whole label prefix > word prefix > anywhere; movies before people on ties
+                int match = pos == 0 ? 3 : e.key().charAt(pos - 1) == ' ' ? 2 : 1;
+                hits.add(new Scored(e, match * 2 + (e.movie() ? 1 : 0), popularityOf(e, popularity)));
+            }
+            hits.sort(Comparator.comparingInt(Scored::match).reversed()
+                    .thenComparing(Comparator.comparingLong(Scored::popularity).reversed())
+                    .thenComparing(s -> s.entry().key()));
+
+            List<SuggestionDto> out = new ArrayList<>(Math.min(limit, hits.size()));
+            for (int i = 0; i < hits.size() && out.size() < limit; i++) {
+                Entry e = hits.get(i).entry();
+                out.add(new SuggestionDto(e.movie() ? "movie" : "person", e.id(), e.label(), e.movieIds()));
+            }
+            return out;
+        }
+
+        private int[] wordPrefixMatches(String prefix) {
+            int lo = 0, hi = words.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (words[mid].compareTo(prefix) < 0) lo = mid + 1; else hi = mid;
+            }
+            BitSet seen = new BitSet(entries.length);
+            for (int i = lo; i < words.length && words[i].startsWith(prefix); i++) {
+                seen.set(wordEntry[i]);
+            }
+            return seen.stream().toArray();
+        }
+
+        private int[] trigramMatches(String query) {
+            // intersect postings, rarest trigram first
+            List<int[]> lists = new ArrayList<>();
+            for (int p = 0; p + 3 <= query.length(); p++) {
+                int[] list = trigrams.get(trigram(query, p));
+                if (list == null) return new int[0];
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(l -> l.length));
+            int[] result = lists.get(0);
+            for (int i = 1; i < lists.size() && result.length > 0; i++) {
+                result = intersect(result, lists.get(i));
+            }
+            return result;
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            int[] out = new int[Math.min(a.length, b.length)];
+            int i = 0, j = 0, n = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) i++;
+                else if (a[i] > b[j]) j++;
+                else { out[n++] = a[i]; i++; j++; }
+            }
+            return Arrays.copyOf(out, n);
+        }
+
+        private static long popularityOf(Entry e, Map<Long, LongAdder> popularity) {
+            if (e.movie()) {
+                LongAdder sold = popularity.get(e.id());
+                return sold == null ? 0 : sold.sum();
+            }
+            long total = 0;
+            for (Long movieId : e.movieIds()) {
+                LongAdder sold = popularity.get(movieId);
+                if (sold != null) total += sold.sum();
+            }
+            return total;
+        }
+
+        private static long trigram(String s, int p) {
+            return ((long) s.charAt(p) << 32) | ((long) s.charAt(p + 1) << 16) | s.charAt(p + 2);
+        }
+    }
+
+    private record Scored(Entry entry, int match, long popularity) {}
+}
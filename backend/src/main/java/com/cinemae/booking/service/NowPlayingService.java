@@ -0,0 +1,189 @@
+package com.cinemae.booking.service;
+
+import com.cinemae.booking.api.MovieDto;
+import com.cinemae.booking.api.ScheduledMovieDto;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Read model behind the home page shelves (same windows as the v_now_playing / v_coming_soon
+ * views). Upcoming show times are held in memory per movie; the shelves are recomputed from
+ * them every minute as the windows slide, and swapped in as one immutable snapshot. MySQL is
+ * only read on the periodic full reload and when a movie is edited or deleted. The app has
+ * no showtime write path; schedules are maintained in the database directly, so the periodic
+ * reload is what picks them up.
+ */
+@Service
+public class NowPlayingService {
+
+    private static final long PLAYING_BEHIND = Duration.ofDays(1).toMillis();
+    private static final long PLAYING_AHEAD = Duration.ofDays(14).toMillis();
+
+    private final JdbcTemplate jdbc;
+    private final MovieCatalogService catalog;
+
+    // movie id -> ascending show start times (epoch millis), guarded by "this"
+    private final Map<Long, long[]> shows = new HashMap<>();
+    private volatile boolean loaded;
+
+    private volatile Shelves shelves = new Shelves(List.of(), List.of(), 0);
+
+    public NowPlayingService(JdbcTemplate jdbc, MovieCatalogService catalog) {
+        this.jdbc = jdbc;
+        this.catalog = catalog;
+    }
+
+    // movie rows are resolved through the catalog cache at read time, so edits show up without a rebuild
+    private record Entry(long movieId, long firstShow, long lastShow) {}
+
+    private record Shelves(List<Entry> nowPlaying, List<Entry> comingSoon, long builtAt) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reloadAll();
+        } catch (Exception e) {
+            System.err.println("Now-playing shelves not built at startup, will retry on first use: " + e.getMessage());
+        }
+    }
+
+    // showtimes are only written outside the app
+    @Scheduled(initialDelayString = "${app.now-playing.reload:PT15M}", fixedDelayString = "${app.now-playing.reload:PT15M}")
+    public void scheduledReload() {
+        try {
+            reloadAll();
+        } catch (Exception e) {
+            System.err.println("Now-playing reload failed, keeping previous shelves: " + e.getMessage());
+        }
+    }
+
+    // windows are relative to now; recompute from memory, no query
+    @Scheduled(fixedDelayString = "${app.now-playing.refresh:PT1M}")
+    public synchronized void scheduledRefresh() {
+        if (loaded) rebuild();
+    }
+
+    // deleting a movie cascades to its showtimes
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.movieId() == null) {
+            reloadAll();
+        } else {
+            reloadMovie(event.movieId());
+        }
+    }
+
+    public List<ScheduledMovieDto> nowPlaying(int limit) {
+        return resolve(current().nowPlaying(), limit, true);
+    }
+
+    public List<ScheduledMovieDto> comingSoon(int limit) {
+        return resolve(current().comingSoon(), limit, false);
+    }
+
+    public LocalDateTime builtAt() {
+        return new Timestamp(current().builtAt()).toLocalDateTime();
+    }
+
+    private Shelves current() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) reloadAll();
+            }
+        }
+        return shelves;
+    }
+
+    private List<ScheduledMovieDto> resolve(List<Entry> entries, int limit, boolean withLastShow) {
+        List<Entry> top = entries.subList(0, Math.min(limit, entries.size()));
+        Map<Long, MovieDto> movies = catalog.findByIds(top.stream().map(Entry::movieId).toList());
+        List<ScheduledMovieDto> out = new ArrayList<>(top.size());
+        for (Entry e : top) {
+            MovieDto movie = movies.get(e.movieId());
+            if (movie == null) continue;
+            out.add(new ScheduledMovieDto(movie, new Timestamp(e.firstShow()).toLocalDateTime(),
+                    withLastShow ? new Timestamp(e.lastShow()).toLocalDateTime() : null));
+        }
+        return out;
+    }
+
+    // --- loading ---
+
+    public synchronized void reloadAll() {
+        Map<Long, List<Long>> byMovie = new HashMap<>();
+        jdbc.query("SELECT movie_id, starts_at FROM showtimes WHERE starts_at >= ?", rs -> {
+            byMovie.computeIfAbsent(rs.getLong("movie_id"), id -> new ArrayList<>())
+                    .add(rs.getTimestamp("starts_at").getTime());
+        }, new Timestamp(System.currentTimeMillis() - PLAYING_BEHIND));
+
+        shows.clear();
+        byMovie.forEach((movieId, times) -> shows.put(movieId, sorted(times)));
+        loaded = true;
+        rebuild();
+    }
+
+    private synchronized void reloadMovie(long movieId) {
+        if (!loaded) return;
+        List<Timestamp> times = jdbc.queryForList(
+                "SELECT starts_at FROM showtimes WHERE movie_id = ? AND starts_at >= ? ORDER BY starts_at",
+                Timestamp.class, movieId, new Timestamp(System.currentTimeMillis() - PLAYING_BEHIND));
+        if (times.isEmpty()) {
+            shows.remove(movieId);
+        } else {
+            shows.put(movieId, times.stream().mapToLong(Timestamp::getTime).toArray());
+        }
+        rebuild();
+    }
+
+    private static long[] sorted(List<Long> times) {
+        long[] a = times.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(a);
+        return a;
+    }
+
+    private void rebuild() {
+        long now = System.currentTimeMillis();
+        long from = now - PLAYING_BEHIND;
+        long to = now + PLAYING_AHEAD;
+
+        List<Entry> nowPlaying = new ArrayList<>();
+        Map<Long, Long> nextShow = new HashMap<>();
+        List<Entry> comingSoon = new ArrayList<>();
+        shows.values().removeIf(times -> times[times.length - 1] < from);
+        shows.forEach((movieId, times) -> {
+            int first = lowerBound(times, from);
+            int afterLast = lowerBound(times, to + 1);
+            if (first < afterLast) {
+                nowPlaying.add(new Entry(movieId, times[first], times[afterLast - 1]));
+                int next = lowerBound(times, now);
+                nextShow.put(movieId, next < times.length ? times[next] : Long.MAX_VALUE);
+            }
+            int upcoming = lowerBound(times, now + 1);
+            if (upcoming < times.length) {
+                comingSoon.add(new Entry(movieId, times[upcoming], times[times.length - 1]));
+            }
+        });
+        // next screening first; titles whose last show already started go to the back
+        nowPlaying.sort(Comparator.comparingLong((Entry e) -> nextShow.get(e.movieId())).thenComparingLong(Entry::movieId));
+        comingSoon.sort(Comparator.comparingLong(Entry::firstShow).thenComparingLong(Entry::movieId));
+        shelves = new Shelves(List.copyOf(nowPlaying), List.copyOf(comingSoon), now);
+    }
+
+    // first index with times[i] >= key
+    private static int lowerBound(long[] times, long key) {
+        int lo = 0, hi = times.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,157 @@
+package com.cinemae.booking.service;
+
+import com.cinemae.booking.api.OccupancyDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sold / held / free seats per showtime without counting rows. Showtimes with a loaded seat
+ * map answer from the counters {@link ShowtimeSeats} keeps on every hold, release and sale;
+ * changed showtimes are checkpointed to showtime_occupancy in one batch. Cold showtimes are
+ * read from that table (holds from seat_locks) for a whole page at a time and cached briefly.
+ */
+@Service
+public class OccupancyCounters {
+
+    private final JdbcTemplate jdbc;
+    private final SeatMapService seatMaps;
+    // changed since the last checkpoint; kept even if the seat map is evicted meanwhile
+    private final Map<Long, ShowtimeSeats> dirty = new ConcurrentHashMap<>();
+    private final Cache<Long, Optional<OccupancyDto>> cold;
+
+    public OccupancyCounters(JdbcTemplate jdbc, SeatMapService seatMaps,
+                             @Value("${app.occupancy.cold-ttl:PT30S}") Duration coldTtl) {
+        this.jdbc = jdbc;
+        this.seatMaps = seatMaps;
+        this.cold = Caffeine.newBuilder()
+                .maximumSize(50_000)
+                .expireAfterWrite(coldTtl)
+                .build();
+        seatMaps.onLoad(this::track);
+    }
+
+    public Optional<OccupancyDto> get(long showtimeId) {
+        return Optional.ofNullable(getAll(List.of(showtimeId)).get(showtimeId));
+    }
+
+    /** Unknown showtimes are absent from the result; iteration follows {@code showtimeIds}. */
+    public Map<Long, OccupancyDto> getAll(Collection<Long> showtimeIds) {
+        Map<Long, OccupancyDto> out = new LinkedHashMap<>();
+        Set<Long> misses = new LinkedHashSet<>();
+        for (Long id : showtimeIds) {
+            ShowtimeSeats seats = seatMaps.loaded(id).orElseGet(() -> dirty.get(id));
+            if (seats != null) {
+                out.put(id, toDto(seats));
+            } else {
+                out.put(id, null);
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            cold.getAll(misses, this::loadCold).forEach((id, occupancy) -> occupancy.ifPresent(o -> out.put(id, o)));
+        }
+        out.values().removeIf(Objects::isNull);
+        return out;
+    }
+
+    /** Writes every changed showtime to showtime_occupancy; returns the number of rows written. */
+    @Scheduled(initialDelayString = "${app.occupancy.checkpoint:PT30S}", fixedDelayString = "${app.occupancy.checkpoint:PT30S}")
+    public int checkpoint() {
+        if (dirty.isEmpty()) return 0;
+        List<ShowtimeSeats> batch = new ArrayList<>();
+        for (Long id : List.copyOf(dirty.keySet())) {
+            ShowtimeSeats seats = dirty.remove(id);
+            if (seats != null) batch.add(seats);
+        }
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (ShowtimeSeats seats : batch) {
+            rows.add(new Object[]{seats.showtimeId(), seats.layout().size(), seats.soldCount(), seats.heldCount()});
+        }
+        try {
+            jdbc.batchUpdate("INSERT INTO showtime_occupancy (showtime_id, capacity, sold, held) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE capacity = VALUES(capacity), sold = VALUES(sold), held = VALUES(held)", rows);
+        } catch (Exception e) {
+            // try again next round, unless a newer change already re-marked it
+            for (ShowtimeSeats seats : batch) dirty.putIfAbsent(seats.showtimeId(), seats);
+            System.err.println("Occupancy checkpoint failed for " + batch.size() + " showtimes: " + e.getMessage());
+            return 0;
+        }
+        return rows.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    public int pendingCheckpoint() {
+        return dirty.size();
+    }
+
+    // --- counters ---
+
+    private void track(ShowtimeSeats seats) {
+        seats.listen((s, indexes, status, version) -> dirty.put(s.showtimeId(), s));
+        // the freshly loaded counts are now authoritative
+        cold.invalidate(seats.showtimeId());
+        dirty.put(seats.showtimeId(), seats);
+    }
+
+    private static OccupancyDto toDto(ShowtimeSeats seats) {
+        return occupancy(seats.showtimeId(), seats.layout().size(), seats.soldCount(), seats.heldCount());
+    }
+
+    private static OccupancyDto occupancy(long showtimeId, int capacity, int sold, int held) {
+        return new OccupancyDto(showtimeId, capacity, sold, held, Math.max(0, capacity - sold - held));
+    }
+
+    // --- cold showtimes ---
+
+    // checkpointed sold counts first; showtimes never checkpointed are counted from tickets
+    private Map<Long, Optional<OccupancyDto>> loadCold(Set<? extends Long> ids) {
+        String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Object[] args = ids.toArray();
+
+        Map<Long, int[]> counts = new HashMap<>();
+        jdbc.query("SELECT showtime_id, capacity, sold FROM showtime_occupancy WHERE showtime_id IN (" + in + ")", rs -> {
+            counts.put(rs.getLong("showtime_id"), new int[]{rs.getInt("capacity"), rs.getInt("sold"), 0});
+        }, args);
+
+        List<Long> uncounted = new ArrayList<>();
+        for (Long id : ids) if (!counts.containsKey(id)) uncounted.add(id);
+        if (!uncounted.isEmpty()) {
+            String in2 = String.join(",", Collections.nCopies(uncounted.size(), "?"));
+            Object[] args2 = uncounted.toArray();
+            jdbc.query("SELECT s.id, COUNT(se.id) AS n FROM showtimes s LEFT JOIN seats se ON se.auditorium_id = s.auditorium_id "
+                    + "WHERE s.id IN (" + in2 + ") GROUP BY s.id", rs -> {
+                counts.put(rs.getLong("id"), new int[]{rs.getInt("n"), 0, 0});
+            }, args2);
+            jdbc.query("SELECT showtime_id, COUNT(*) AS n FROM tickets WHERE showtime_id IN (" + in2 + ") GROUP BY showtime_id", rs -> {
+                int[] c = counts.get(rs.getLong("showtime_id"));
+                if (c != null) c[1] = rs.getInt("n");
+            }, args2);
+        }
+        // holds lapse on their own, so they are never taken from a checkpoint
+        jdbc.query("SELECT showtime_id, COUNT(*) AS n FROM seat_locks WHERE showtime_id IN (" + in + ") "
+                + "AND expires_at > NOW() GROUP BY showtime_id", rs -> {
+            int[] c = counts.get(rs.getLong("showtime_id"));
+            if (c != null) c[2] = rs.getInt("n");
+        }, args);
+
+        Map<Long, Optional<OccupancyDto>> loaded = new HashMap<>();
+        for (Long id : ids) {
+            int[] c = counts.get(id);
+            loaded.put(id, c == null ? Optional.empty() : Optional.of(occupancy(id, c[0], c[1], c[2])));
+        }
+        return loaded;
+    }
+}
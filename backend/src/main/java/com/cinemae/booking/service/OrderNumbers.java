@@ -0,0 +1,143 @@
+package com.cinemae.booking.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Booking and ticket numbers for this instance. Each running backend leases its own node id
+ * from id_node_leases (renewed in the background), so numbers from different instances can't
+ * collide and issuing one never touches the database. {@code app.ids.node} pins a node id
+ * instead, for single-instance setups.
+ * <p>
+ * The lease is only trusted until its TTL has run out as measured locally from the last
+ * successful write: past that another instance may have taken the node id over, so numbers
+ * are refused (after one attempt to renew) rather than risk a duplicate.
+ */
+@Service
+public class OrderNumbers {
+
+    private final JdbcTemplate jdbc;
+    private final Duration leaseTtl;
+    private final String owner = UUID.randomUUID().toString();
+    private final boolean leased;
+    private volatile BookingNumberGenerator generator;
+    // System.nanoTime() by which the lease has certainly lapsed; counted from before the write
+    // that set expires_at, so it never runs past the database's view
+    private volatile long leaseDeadline;
+
+    public OrderNumbers(JdbcTemplate jdbc,
+                        @Value("${app.ids.node:-1}") int fixedNode,
+                        @Value("${app.ids.lease:PT5M}") Duration leaseTtl) {
+        this.jdbc = jdbc;
+        this.leaseTtl = leaseTtl;
+        this.leased = fixedNode < 0;
+        if (!leased) {
+            generator = new BookingNumberGenerator(fixedNode);
+        } else {
+            try {
+                generator = acquire();
+            } catch (Exception e) {
+                System.err.println("Order-number node not leased at startup, will retry on first use: " + e.getMessage());
+            }
+        }
+    }
+
+    public String bookingNumber() {
+        BookingNumberGenerator g = generator();
+        if (leased && System.nanoTime() - leaseDeadline >= 0) {
+            // e.g. the database was unreachable for a whole TTL; try once, then refuse
+            renew();
+            g = generator;
+            if (g == null || System.nanoTime() - leaseDeadline >= 0) {
+                throw new IllegalStateException("order-number node lease has lapsed; not issuing numbers until it is renewed");
+            }
+        }
+        return g.next();
+    }
+
+    // booking number plus a two-digit position, CHAR(16)
+    public static String ticketNumber(String bookingNumber, int index) {
+        return bookingNumber + (index < 10 ? "0" : "") + index;
+    }
+
+    public int node() {
+        return generator().node();
+    }
+
+    private BookingNumberGenerator generator() {
+        BookingNumberGenerator g = generator;
+        if (g == null) {
+            synchronized (this) {
+                if (generator == null) generator = acquire();
+                g = generator;
+            }
+        }
+        return g;
+    }
+
+    @Scheduled(fixedDelayString = "PT1M")
+    public synchronized void renew() {
+        BookingNumberGenerator g = generator;
+        if (!leased || g == null) return;
+        try {
+            long started = System.nanoTime();
+            int updated = jdbc.update("UPDATE id_node_leases SET expires_at = NOW() + INTERVAL ? SECOND, last_ms = GREATEST(last_ms, ?) "
+                    + "WHERE node_id = ? AND owner = ?", leaseTtl.toSeconds(), g.lastMillis(), g.node(), owner);
+            if (updated == 0) {
+                // lapsed (e.g. database unreachable for a whole TTL) and possibly taken over: move on
+                System.err.println("Lost order-number node " + g.node() + ", leasing a new one");
+                generator = acquire();
+            } else {
+                leaseDeadline = started + leaseTtl.toNanos();
+            }
+        } catch (Exception e) {
+            System.err.println("Could not renew order-number node lease: " + e.getMessage());
+        }
+    }
+
+    // leave last_ms behind so the next owner of this node id starts after our numbers
+    @PreDestroy
+    public void release() {
+        BookingNumberGenerator g = generator;
+        if (!leased || g == null) return;
+        try {
+            jdbc.update("UPDATE id_node_leases SET expires_at = NOW(), last_ms = GREATEST(last_ms, ?) "
+                    + "WHERE node_id = ? AND owner = ?", g.lastMillis(), g.node(), owner);
+        } catch (Exception e) {
+            System.err.println("Could not release order-number node lease: " + e.getMessage());
+        }
+    }
+
+    // lowest free or lapsed node id; the conditional upsert only takes a row over if it lapsed
+    private BookingNumberGenerator acquire() {
+        for (int attempt = 0; attempt < 5; attempt++) {
+            long started = System.nanoTime();
+            Set<Integer> busy = new HashSet<>(jdbc.queryForList(
+                    "SELECT node_id FROM id_node_leases WHERE expires_at > NOW()", Integer.class));
+            int node = 0;
+            while (busy.contains(node)) node++;
+            if (node > BookingNumberGenerator.MAX_NODE) throw new IllegalStateException("all order-number node ids are leased");
+
+            jdbc.update("INSERT INTO id_node_leases (node_id, owner, expires_at, last_ms) VALUES (?, ?, NOW() + INTERVAL ? SECOND, 0) "
+                    + "ON DUPLICATE KEY UPDATE "
+                    + "owner = IF(expires_at <= NOW(), VALUES(owner), owner), "
+                    + "expires_at = IF(owner = VALUES(owner), VALUES(expires_at), expires_at)",
+                    node, owner, leaseTtl.toSeconds());
+            List<Map<String, Object>> row = jdbc.queryForList(
+                    "SELECT owner, last_ms FROM id_node_leases WHERE node_id = ?", node);
+            if (!row.isEmpty() && owner.equals(row.get(0).get("owner"))) {
+                long lastMs = ((Number) row.get(0).get("last_ms")).longValue();
+                leaseDeadline = started + leaseTtl.toNanos();
+                return new BookingNumberGenerator(node, lastMs + 1, System::currentTimeMillis);
+            }
+            // another instance won the race for this id; look again
+        }
+        throw new IllegalStateException("could not lease an order-number node id");
+    }
+}
@@ -0,0 +1,137 @@
+package com.cinemae.booking.service;
+
+/**
+ * Order totals in whole cents: one line per age category, the per-ticket booking fee of the
+ * price rule, a percent and/or flat promo discount, and tax. Everything is primitive
+ * {@code long} arithmetic with one rounding rule (half up, to the cent) applied at two fixed
+ * points, the percent discount and the tax, so the same order always comes out to the same
+ * cent. Overflow throws instead of wrapping.
+ * <p>
+ * An instance is a reusable scratch area: {@link #reset}, {@link #add} tickets, {@link #price},
+ * then read the results. Nothing is allocated along the way. Not thread-safe; keep one per
+ * thread.
+ * <pre>
+ * subtotal = sum(unit price x quantity)
+ * discount = min(subtotal, flat off + round(subtotal x percent off))
+ * fees     = booking fee x tickets
+ * tax      = round((subtotal - discount + fees) x tax rate)
+ * total    = subtotal - discount + fees + tax
+ * </pre>
+ */
+public final class OrderQuoteCalculator {
+
+    // values() clones its array on every call
+    private static final PricingEngine.AgeCategory[] AGES = PricingEngine.AgeCategory.values();
+
+    private final int[] quantities = new int[AGES.length];
+    private final long[] unitCents = new long[AGES.length];
+    private final long[] lineCents = new long[AGES.length];
+    private int tickets;
+    private long ruleId;
+    private long subtotal;
+    private long discount;
+    private long fees;
+    private long tax;
+    private long total;
+
+    public OrderQuoteCalculator reset() {
+        for (int i = 0; i < AGES.length; i++) {
+            quantities[i] = 0;
+            unitCents[i] = 0;
+            lineCents[i] = 0;
+        }
+        tickets = 0;
+        ruleId = subtotal = discount = fees = tax = total = 0;
+        return this;
+    }
+
+    public OrderQuoteCalculator add(PricingEngine.AgeCategory age, int quantity) {
+        if (quantity < 0) throw new IllegalArgumentException("negative ticket quantity");
+        quantities[age.ordinal()] += quantity;
+        tickets += quantity;
+        return this;
+    }
+
+    /**
+     * Prices the tickets added so far.
+     *
+     * @param percentOffBasisPoints promo percent off in hundredths of a percent (12.5% = 1250), 0 for none
+     * @param flatOffCents          promo amount off, 0 for none
+     * @param taxBasisPoints        tax rate in hundredths of a percent, 0 for none
+     */
+    public OrderQuoteCalculator price(PricingEngine.Price price, long percentOffBasisPoints, long flatOffCents,
+                                      long taxBasisPoints) {
+        ruleId = price.ruleId();
+        long sum = 0;
+        for (int i = 0; i < AGES.length; i++) {
+            long unit = price.cents(AGES[i]);
+            unitCents[i] = unit;
+            lineCents[i] = Math.multiplyExact(unit, quantities[i]);
+            sum = Math.addExact(sum, lineCents[i]);
+        }
+        subtotal = sum;
+        discount = discountCents(subtotal, percentOffBasisPoints, flatOffCents);
+        fees = Math.multiplyExact(price.bookingFeeCents(), tickets);
+        long taxable = Math.addExact(subtotal - discount, fees);
+        tax = percentOf(taxable, taxBasisPoints);
+        total = Math.addExact(taxable, tax);
+        return this;
+    }
+
+    public int tickets() {
+        return tickets;
+    }
+
+    public long ruleId() {
+        return ruleId;
+    }
+
+    public int quantity(PricingEngine.AgeCategory age) {
+        return quantities[age.ordinal()];
+    }
+
+    public long unitCents(PricingEngine.AgeCategory age) {
+        return unitCents[age.ordinal()];
+    }
+
+    public long lineCents(PricingEngine.AgeCategory age) {
+        return lineCents[age.ordinal()];
+    }
+
+    public long subtotalCents() {
+        return subtotal;
+    }
+
+    public long discountCents() {
+        return discount;
+    }
+
+    public long feesCents() {
+        return fees;
+    }
+
+    public long taxCents() {
+        return tax;
+    }
+
+    public long totalCents() {
+        return total;
+    }
+
+    /** Promo discount on {@code subtotalCents}: flat plus percent (half up), never more than the subtotal. */
+    public static long discountCents(long subtotalCents, long percentOffBasisPoints, long flatOffCents) {
+        long off = Math.addExact(Math.max(0, flatOffCents), percentOf(subtotalCents, Math.max(0, percentOffBasisPoints)));
+        return Math.min(off, subtotalCents);
+    }
+
+    /** {@code cents} x {@code basisPoints} / 10000, rounded half up; both non-negative. */
+    public static long percentOf(long cents, long basisPoints) {
+        return (Math.multiplyExact(cents, basisPoints) + 5000) / 10000;
+    }
+
+    /** "$12.50" without going through floating point. */
+    public static String format(long cents) {
+        long abs = Math.abs(cents);
+        return (cents < 0 ? "-$" : "$") + abs / 100 + "." + (abs % 100 < 10 ? "0" : "") + abs % 100;
+    }
+}
@@ -0,0 +1,341 @@
+package com.cinemae.booking.service;
+
+import com.cinemae.booking.api.OrderDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Checkout. An order goes through a fixed pipeline: take the seat hold out of circulation,
+ * price every seat from memory, apply a promo code (checked and redeemed in memory), write the booking and all its tickets in one transaction
+ * (tickets as a single batch), then turn the held seats into sold ones. A failure before the
+ * commit puts the hold back untouched.
+ * <p>
+ * Requests carrying an Idempotency-Key are answered once per key: concurrent duplicates wait
+ * for the first one and every later duplicate gets the same result replayed from memory.
+ */
+@Service
+public class OrderService {
+
+    public enum Outcome { CREATED, CONFIRMED, NOT_FOUND, CONFLICT, INVALID }
+
+    /** {@code order} for CREATED and CONFIRMED, {@code message} otherwise. */
+    public record Result(Outcome outcome, OrderDto order, String message, boolean replayed) {
+
+        static Result of(Outcome outcome, OrderDto order) {
+            return new Result(outcome, order, null, false);
+        }
+
+        static Result failed(Outcome outcome, String message) {
+            return new Result(outcome, null, message, false);
+        }
+
+        Result asReplay() {
+            return new Result(outcome, order, message, true);
+        }
+    }
+
+    /** Seats not listed in {@code ageCategories} are sold as ADULT; {@code promoCode} is optional. */
+    public record OrderRequest(String reservationId, Long userId, Map<Long, PricingEngine.AgeCategory> ageCategories,
+                               String promoCode) {}
+
+    private record Cached(String fingerprint, Result result) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final SeatReservationService reservations;
+    private final SeatMapService seatMaps;
+    private final PricingEngine pricing;
+    private final MovieSuggestIndex suggestIndex;
+    private final OrderNumbers numbers;
+    private final PromotionIndex promotions;
+    private final PromoRedemptionLedger redemptions;
+    private final Cache<String, CompletableFuture<Cached>> idempotent;
+    private final long idempotencyWaitMillis;
+
+    public OrderService(JdbcTemplate jdbc, PlatformTransactionManager txManager, SeatReservationService reservations,
+                        SeatMapService seatMaps, PricingEngine pricing, MovieSuggestIndex suggestIndex, OrderNumbers numbers,
+                        PromotionIndex promotions, PromoRedemptionLedger redemptions,
+                        @Value("${app.orders.idempotency-ttl:PT24H}") Duration idempotencyTtl,
+                        @Value("${app.orders.idempotency-wait:PT30S}") Duration idempotencyWait) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.reservations = reservations;
+        this.seatMaps = seatMaps;
+        this.pricing = pricing;
+        this.suggestIndex = suggestIndex;
+        this.numbers = numbers;
+        this.promotions = promotions;
+        this.redemptions = redemptions;
+        this.idempotent = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(idempotencyTtl)
+                .build();
+        this.idempotencyWaitMillis = idempotencyWait.toMillis();
+    }
+
+    public Result place(OrderRequest request, String idempotencyKey) {
+        return once("place:" + idempotencyKey, idempotencyKey, request.toString(), () -> place(request));
+    }
+
+    /** Whether a place request with this Idempotency-Key ran or is running, i.e. a retry will be replayed. */
+    public boolean isReplay(String idempotencyKey) {
+        return idempotencyKey != null && !idempotencyKey.isBlank()
+                && idempotent.getIfPresent("place:" + idempotencyKey) != null;
+    }
+
+    /** Marks a pending order paid; confirming a paid order again succeeds without a write. */
+    public Result confirm(String orderId, String idempotencyKey) {
+        return once("confirm:" + idempotencyKey, idempotencyKey, orderId, () -> confirm(orderId));
+    }
+
+    public Optional<OrderDto> find(String orderId) {
+        // typos and guesses fail the check digit without a query
+        if (!BookingNumberGenerator.isWellFormed(orderId)) return Optional.empty();
+        orderId = orderId.toUpperCase(Locale.ROOT);
+        List<Map<String, Object>> rows = jdbc.queryForList(
+                "SELECT id, booking_number, user_id, status, subtotal_cents, fees_cents, tax_cents, total_cents, created_at "
+                        + "FROM bookings WHERE booking_number = ?", orderId);
+        if (rows.isEmpty()) return Optional.empty();
+        Map<String, Object> b = rows.get(0);
+        long subtotal = ((Number) b.get("subtotal_cents")).longValue();
+        long fees = ((Number) b.get("fees_cents")).longValue();
+        long tax = ((Number) b.get("tax_cents")).longValue();
+        long total = ((Number) b.get("total_cents")).longValue();
+
+        long[] showtimeId = {0};
+        List<OrderDto.Ticket> tickets = jdbc.query(
+                "SELECT t.ticket_number, t.showtime_id, t.seat_id, s.row_label, s.seat_number, t.age_category, t.price_cents "
+                        + "FROM tickets t JOIN seats s ON s.id = t.seat_id WHERE t.booking_id = ? ORDER BY t.ticket_number",
+                (rs, rowNum) -> {
+                    showtimeId[0] = rs.getLong("showtime_id");
+                    return new OrderDto.Ticket(rs.getString("ticket_number"), rs.getLong("seat_id"), rs.getString("row_label"),
+                            rs.getInt("seat_number"), rs.getString("age_category"), rs.getLong("price_cents"));
+                },
+                ((Number) b.get("id")).longValue());
+        return Optional.of(new OrderDto(
+                (String) b.get("booking_number"),
+                (String) b.get("status"),
+                ((Number) b.get("user_id")).longValue(),
+                showtimeId[0],
+                tickets,
+                subtotal,
+                subtotal + fees + tax - total,
+                fees,
+                tax,
+                total,
+                toLocalDateTime(b.get("created_at"))));
+    }
+
+    // --- idempotency ---
+
+    // The first caller for a key runs the action; concurrent duplicates wait on its future.
+    // A failed action is forgotten so the client can retry with the same key. Duplicates give up
+    // after app.orders.idempotency-wait rather than hold a request thread indefinitely.
+    private Result once(String cacheKey, String idempotencyKey, String fingerprint, Supplier<Result> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) return action.get();
+        CompletableFuture<Cached> mine = new CompletableFuture<>();
+        CompletableFuture<Cached> existing = idempotent.asMap().putIfAbsent(cacheKey, mine);
+        if (existing == null) {
+            try {
+                Result result = action.get();
+                mine.complete(new Cached(fingerprint, result));
+                return result;
+            } catch (Throwable e) {
+                // Errors too, or the key would stay taken and its waiters would never wake
+                idempotent.asMap().remove(cacheKey, mine);
+                mine.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        Cached cached;
+        try {
+            cached = existing.get(idempotencyWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // the original attempt failed; this duplicate becomes the retry
+            return once(cacheKey, idempotencyKey, fingerprint, action);
+        } catch (TimeoutException e) {
+            return Result.failed(Outcome.CONFLICT, "a request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.failed(Outcome.CONFLICT, "a request with this Idempotency-Key is still in progress");
+        }
+        if (!cached.fingerprint().equals(fingerprint)) {
+            return Result.failed(Outcome.INVALID, "Idempotency-Key was already used for a different request");
+        }
+        return cached.result().asReplay();
+    }
+
+    // Connector/J 8+ maps DATETIME to LocalDateTime in getObject, older drivers to Timestamp
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp ts ? ts.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    // --- pipeline ---
+
+    private Result place(OrderRequest request) {
+        if (request.userId() == null) return Result.failed(Outcome.INVALID, "userId required");
+
+        // 1. validate and take the hold so it can't expire or be used twice
+        Optional<SeatHold> taken = reservations.take(request.reservationId());
+        if (taken.isEmpty()) return Result.failed(Outcome.NOT_FOUND, "reservation not found or expired");
+        SeatHold hold = taken.get();
+        if (hold.userId() != null && !hold.userId().equals(request.userId())) {
+            reservations.restore(hold);
+            return Result.failed(Outcome.INVALID, "reservation belongs to another user");
+        }
+
+        OrderDto order;
+        PromoRedemptionLedger.Redemption redemption = null;
+        try {
+            // 2. price
+            Optional<ShowtimeSeats> seats = seatMaps.showtime(hold.showtimeId());
+            Optional<PricingEngine.Price> price = seats.flatMap(s ->
+                    pricing.resolve(s.showtimeId(), s.movieId(), System.currentTimeMillis()));
+            if (price.isEmpty()) {
+                reservations.restore(hold);
+                return Result.failed(Outcome.CONFLICT, "no price rule applies to this showtime");
+            }
+            OrderQuoteCalculator calc = pricing.calculator();
+            List<OrderDto.Ticket> lines = priceSeats(seats.get(), hold, price.get(), request.ageCategories(), calc);
+
+            // promo code: checked against the in-memory index, then one redemption taken
+            PromotionIndex.Validation promo = null;
+            Long promoCodeId = null;
+            if (request.promoCode() != null && !request.promoCode().isBlank()) {
+                promo = promotions.validate(request.promoCode());
+                redemption = promo.valid() ? redemptions.reserve(promo.code()).orElse(null) : null;
+                if (redemption == null) {
+                    reservations.restore(hold);
+                    PromotionIndex.Status status = promo.valid() ? PromotionIndex.Status.EXHAUSTED : promo.status();
+                    return Result.failed(Outcome.INVALID, "promo code " + status.name().toLowerCase(Locale.ROOT).replace('_', ' '));
+                }
+                promoCodeId = promo.codeId();
+            }
+            calc.price(price.get(), promo == null ? 0 : promo.percentOffBasisPoints(), promo == null ? 0 : promo.flatOffCents(),
+                    pricing.taxBasisPoints());
+
+            // 3. booking + tickets in one transaction
+            order = insert(request.userId(), hold.showtimeId(), lines, calc, promoCodeId);
+        } catch (DuplicateKeyException e) {
+            if (redemption != null) redemptions.release(redemption);
+            reservations.restore(hold);
+            if (!isSeatCollision(e)) {
+                // booking or ticket number: two instances share a node id, not a seat problem
+                System.err.println("Order number collision, check id_node_leases: " + e.getMostSpecificCause().getMessage());
+                throw e;
+            }
+            // a ticket for one of these seats exists already; the seat map was out of date
+            seatMaps.evict(hold.showtimeId());
+            return Result.failed(Outcome.CONFLICT, "some seats were already sold");
+        } catch (RuntimeException e) {
+            if (redemption != null) redemptions.release(redemption);
+            reservations.restore(hold);
+            throw e;
+        }
+
+        // 4. after commit: seats sold, hold gone, read models told
+        if (redemption != null) redemptions.settle(redemption);
+        reservations.convert(hold);
+        seatMaps.loaded(hold.showtimeId()).ifPresent(s -> suggestIndex.recordPopularity(s.movieId(), order.tickets().size()));
+        return Result.of(Outcome.CREATED, order);
+    }
+
+    // tickets.uq_showtime_seat, as opposed to the booking_number / ticket_number keys
+    private static boolean isSeatCollision(DuplicateKeyException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains("uq_showtime_seat");
+    }
+
+    private static List<OrderDto.Ticket> priceSeats(ShowtimeSeats seats, SeatHold hold, PricingEngine.Price price,
+                                                    Map<Long, PricingEngine.AgeCategory> ageCategories,
+                                                    OrderQuoteCalculator calc) {
+        List<OrderDto.Ticket> lines = new ArrayList<>(hold.seatIds().length);
+        for (int i = 0; i < hold.seatIds().length; i++) {
+            long seatId = hold.seatIds()[i];
+            AuditoriumLayout.Seat seat = seats.layout().seat(hold.seatIndexes()[i]);
+            PricingEngine.AgeCategory age = ageCategories != null
+                    ? ageCategories.getOrDefault(seatId, PricingEngine.AgeCategory.ADULT)
+                    : PricingEngine.AgeCategory.ADULT;
+            lines.add(new OrderDto.Ticket(null, seatId, seat.row(), seat.number(), age.name(), price.cents(age)));
+            calc.add(age, 1);
+        }
+        return lines;
+    }
+
+    private OrderDto insert(long userId, long showtimeId, List<OrderDto.Ticket> lines, OrderQuoteCalculator calc,
+                            Long promoCodeId) {
+        long subtotal = calc.subtotalCents();
+        long discount = calc.discountCents();
+        long fees = calc.feesCents();
+        long tax = calc.taxCents();
+        long total = calc.totalCents();
+        String bookingNumber = numbers.bookingNumber();
+
+        List<OrderDto.Ticket> tickets = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            OrderDto.Ticket t = lines.get(i);
+            tickets.add(new OrderDto.Ticket(OrderNumbers.ticketNumber(bookingNumber, i), t.seatId(), t.row(), t.number(),
+                    t.ageCategory(), t.priceCents()));
+        }
+
+        tx.executeWithoutResult(status -> {
+            KeyHolder key = new GeneratedKeyHolder();
+            jdbc.update(con -> {
+                PreparedStatement ps = con.prepareStatement(
+                        "INSERT INTO bookings (booking_number, user_id, status, subtotal_cents, fees_cents, tax_cents, total_cents, promo_code_id) "
+                                + "VALUES (?, ?, 'PENDING', ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+                ps.setString(1, bookingNumber);
+                ps.setLong(2, userId);
+                ps.setLong(3, subtotal);
+                ps.setLong(4, fees);
+                ps.setLong(5, tax);
+                ps.setLong(6, total);
+                ps.setObject(7, promoCodeId);
+                return ps;
+            }, key);
+            long bookingId = key.getKey().longValue();
+
+            List<Object[]> rows = new ArrayList<>(tickets.size());
+            for (OrderDto.Ticket t : tickets) {
+                rows.add(new Object[]{t.ticketNumber(), bookingId, showtimeId, t.seatId(), t.ageCategory(), t.priceCents()});
+            }
+            jdbc.batchUpdate("INSERT INTO tickets (ticket_number, booking_id, showtime_id, seat_id, age_category, price_cents) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)", rows);
+        });
+        return new OrderDto(bookingNumber, "PENDING", userId, showtimeId, tickets, subtotal, discount, fees, tax, total,
+                LocalDateTime.now());
+    }
+
+    private Result confirm(String orderId) {
+        if (!BookingNumberGenerator.isWellFormed(orderId)) return Result.failed(Outcome.NOT_FOUND, "order not found");
+        orderId = orderId.toUpperCase(Locale.ROOT);
+        int updated = jdbc.update("UPDATE bookings SET status = 'PAID' WHERE booking_number = ? AND status = 'PENDING'", orderId);
+        Optional<OrderDto> order = find(orderId);
+        if (order.isEmpty()) return Result.failed(Outcome.NOT_FOUND, "order not found");
+        if (updated == 0 && !"PAID".equals(order.get().status())) {
+            return Result.failed(Outcome.CONFLICT, "order is " + order.get().status().toLowerCase(Locale.ROOT));
+        }
+        return Result.of(Outcome.CONFIRMED, order.get());
+    }
+}
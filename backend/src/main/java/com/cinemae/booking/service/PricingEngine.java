@@ -0,0 +1,230 @@
+package com.cinemae.booking.service;
+
+import com.cinemae.booking.api.PriceQuoteDto;
+import com.cinemae.booking.api.PriceRuleDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Ticket prices from price_rules, resolved in memory. Active rules are compiled into one
+ * timeline per scope key (global, each movie, each showtime): non-overlapping segments that
+ * each point at the rule in force there, i.e. the one with the latest effective_from. A
+ * lookup is a binary search per scope, most specific first. Recompiling builds a new
+ * snapshot and swaps it in, so readers never see a half-built index.
+ */
+@Service
+public class PricingEngine {
+
+    public enum AgeCategory { CHILD, ADULT, SENIOR }
+
+    /** The rule in force for a showtime at some instant. */
+    public record Price(long ruleId, long childCents, long adultCents, long seniorCents, long bookingFeeCents) {
+
+        public long cents(AgeCategory age) {
+            return switch (age) {
+                case CHILD -> childCents;
+                case ADULT -> adultCents;
+                case SENIOR -> seniorCents;
+            };
+        }
+    }
+
+    // checkout reuses one calculator per request thread
+    private static final ThreadLocal<OrderQuoteCalculator> CALCULATORS = ThreadLocal.withInitial(OrderQuoteCalculator::new);
+
+    private final JdbcTemplate jdbc;
+    private final long taxBasisPoints;
+    private volatile Snapshot snapshot;
+
+    public PricingEngine(JdbcTemplate jdbc, @Value("${app.pricing.tax-basis-points:0}") long taxBasisPoints) {
+        this.jdbc = jdbc;
+        this.taxBasisPoints = taxBasisPoints;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            recompile();
+        } catch (Exception e) {
+            System.err.println("Price rules not compiled at startup, will retry on first use: " + e.getMessage());
+        }
+    }
+
+    // picks up rules edited directly in the database
+    @Scheduled(initialDelayString = "${app.pricing.reload:PT5M}", fixedDelayString = "${app.pricing.reload:PT5M}")
+    public void scheduledRecompile() {
+        try {
+            recompile();
+        } catch (Exception e) {
+            System.err.println("Price rule recompile failed, keeping previous rules: " + e.getMessage());
+        }
+    }
+
+    /** Showtime rule, else movie rule, else global rule in force at {@code at} (epoch millis). */
+    public Optional<Price> resolve(long showtimeId, long movieId, long at) {
+        Snapshot s = current();
+        Price p = Timeline.find(s.showtimes.get(showtimeId), at);
+        if (p == null) p = Timeline.find(s.movies.get(movieId), at);
+        if (p == null) p = Timeline.find(s.global, at);
+        return Optional.ofNullable(p);
+    }
+
+    /** Prices a whole order; empty if no rule applies. */
+    public Optional<PriceQuoteDto> quote(ShowtimeSeats seats, Map<AgeCategory, Integer> tickets, long at) {
+        Optional<Price> found = resolve(seats.showtimeId(), seats.movieId(), at);
+        if (found.isEmpty()) return Optional.empty();
+
+        OrderQuoteCalculator calc = calculator();
+        for (Map.Entry<AgeCategory, Integer> e : tickets.entrySet()) calc.add(e.getKey(), e.getValue());
+        calc.price(found.get(), 0, 0, taxBasisPoints);
+
+        List<PriceQuoteDto.Line> lines = new ArrayList<>();
+        for (AgeCategory age : AgeCategory.values()) {
+            if (calc.quantity(age) == 0) continue;
+            lines.add(new PriceQuoteDto.Line(age.name(), calc.quantity(age), calc.unitCents(age), calc.lineCents(age)));
+        }
+        return Optional.of(new PriceQuoteDto(seats.showtimeId(), calc.ruleId(), lines, calc.subtotalCents(),
+                calc.feesCents(), calc.taxCents(), calc.totalCents()));
+    }
+
+    /** This thread's calculator, reset; read its results before calling again. */
+    public OrderQuoteCalculator calculator() {
+        return CALCULATORS.get().reset();
+    }
+
+    public long taxBasisPoints() {
+        return taxBasisPoints;
+    }
+
+    public int ruleCount() {
+        return current().rules;
+    }
+
+    // --- compiling ---
+
+    public synchronized void recompile() {
+        List<PriceRuleDto> rules = jdbc.query("SELECT * FROM price_rules WHERE active", PriceRuleDto.ROW_MAPPER);
+        snapshot = compile(rules);
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null) recompile();
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    static Snapshot compile(List<PriceRuleDto> rules) {
+        List<PriceRuleDto> global = new ArrayList<>();
+        Map<Long, List<PriceRuleDto>> movies = new HashMap<>();
+        Map<Long, List<PriceRuleDto>> showtimes = new HashMap<>();
+        for (PriceRuleDto r : rules) {
+            switch (r.scope()) {
+                case "MOVIE" -> {
+                    if (r.movieId() != null) movies.computeIfAbsent(r.movieId(), k -> new ArrayList<>()).add(r);
+                }
+                case "SHOWTIME" -> {
+                    if (r.showtimeId() != null) showtimes.computeIfAbsent(r.showtimeId(), k -> new ArrayList<>()).add(r);
+                }
+                default -> global.add(r);
+            }
+        }
+        Map<Long, Timeline> movieLines = new HashMap<>();
+        movies.forEach((id, list) -> movieLines.put(id, Timeline.of(list)));
+        Map<Long, Timeline> showtimeLines = new HashMap<>();
+        showtimes.forEach((id, list) -> showtimeLines.put(id, Timeline.of(list)));
+        return new Snapshot(Timeline.of(global), movieLines, showtimeLines, rules.size());
+    }
+
+    record Snapshot(Timeline global, Map<Long, Timeline> movies, Map<Long, Timeline> showtimes, int rules) {}
+
+    /** Sorted, non-overlapping [start, end) segments; gaps mean no rule. */
+    static final class Timeline {
+        private final long[] starts;
+        private final long[] ends;
+        private final Price[] prices;
+
+        private Timeline(long[] starts, long[] ends, Price[] prices) {
+            this.starts = starts;
+            this.ends = ends;
+            this.prices = prices;
+        }
+
+        static Price find(Timeline t, long at) {
+            if (t == null) return null;
+            int i = Arrays.binarySearch(t.starts, at);
+            if (i < 0) i = -i - 2;
+            return i >= 0 && at < t.ends[i] ? t.prices[i] : null;
+        }
+
+        static Timeline of(List<PriceRuleDto> rules) {
+            int n = rules.size();
+            long[] from = new long[n];
+            long[] to = new long[n];
+            TreeSet<Long> cuts = new TreeSet<>();
+            for (int i = 0; i < n; i++) {
+                from[i] = millis(rules.get(i).effectiveFrom(), Long.MIN_VALUE);
+                to[i] = millis(rules.get(i).effectiveTo(), Long.MAX_VALUE);
+                cuts.add(from[i]);
+                cuts.add(to[i]);
+            }
+
+            // between two consecutive cut points the set of covering rules is constant
+            List<long[]> segments = new ArrayList<>();
+            List<Price> prices = new ArrayList<>();
+            Long start = null;
+            for (Long cut : cuts) {
+                if (start != null) {
+                    int winner = -1;
+                    for (int i = 0; i < n; i++) {
+                        if (from[i] > start || to[i] <= start) continue;
+                        // latest effective_from wins, newest rule on ties
+                        if (winner < 0 || from[i] > from[winner]
+                                || (from[i] == from[winner] && rules.get(i).id() > rules.get(winner).id())) {
+                            winner = i;
+                        }
+                    }
+                    if (winner >= 0) {
+                        Price p = price(rules.get(winner));
+                        int last = prices.size() - 1;
+                        if (last >= 0 && prices.get(last).equals(p) && segments.get(last)[1] == start) {
+                            segments.get(last)[1] = cut;
+                        } else {
+                            segments.add(new long[]{start, cut});
+                            prices.add(p);
+                        }
+                    }
+                }
+                start = cut;
+            }
+
+            long[] starts = new long[segments.size()];
+            long[] ends = new long[segments.size()];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = segments.get(i)[0];
+                ends[i] = segments.get(i)[1];
+            }
+            return new Timeline(starts, ends, prices.toArray(new Price[0]));
+        }
+
+        private static Price price(PriceRuleDto r) {
+            return new Price(r.id(), r.childCents(), r.adultCents(), r.seniorCents(), r.bookingFeeCents());
+        }
+
+        private static long millis(LocalDateTime t, long ifNull) {
+            return t == null ? ifNull : t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+    }
+}
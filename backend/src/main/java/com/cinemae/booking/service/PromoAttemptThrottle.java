@@ -0,0 +1,67 @@
+package com.cinemae.booking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Per-client token bucket for promo code entry. Only misses (codes that don't exist) take a
+ * token, so a shopper typing one real code is never slowed down, but once a client's bucket
+ * is empty every attempt is refused, hits included, until it refills; otherwise the answer
+ * "throttled" vs "valid" would still tell a guesser which codes exist. Buckets of idle
+ * clients expire, and the cache is bounded so spoofed addresses can't grow it without limit.
+ */
+@Service
+public class PromoAttemptThrottle {
+
+    private final Cache<String, Bucket> buckets;
+    private final int burst;
+    private final long nanosPerToken;
+
+    public PromoAttemptThrottle(@Value("${app.promotions.attempts.burst:10}") int burst,
+                                @Value("${app.promotions.attempts.refill:PT6S}") Duration refill,
+                                @Value("${app.promotions.attempts.max-clients:100000}") long maxClients) {
+        this.burst = burst;
+        this.nanosPerToken = refill.toNanos();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                // an untouched bucket is full again after this long anyway
+                .expireAfterAccess(refill.multipliedBy(burst))
+                .build();
+    }
+
+    /** Whether {@code client} may try a code now. */
+    public boolean permits(String client) {
+        Bucket b = buckets.getIfPresent(client);
+        return b == null || b.tokens(System.nanoTime()) >= 1;
+    }
+
+    /** Charges {@code client} for a code that didn't exist. */
+    public void miss(String client) {
+        buckets.get(client, k -> new Bucket(burst, System.nanoTime())).take(System.nanoTime());
+    }
+
+    private final class Bucket {
+        private double tokens;
+        private long updated;
+
+        Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.updated = now;
+        }
+
+        synchronized double tokens(long now) {
+            tokens = Math.min(burst, tokens + (double) (now - updated) / nanosPerToken);
+            updated = now;
+            return tokens;
+        }
+
+        synchronized void take(long now) {
+            tokens(now);
+            tokens = Math.max(0, tokens - 1);
+        }
+    }
+}
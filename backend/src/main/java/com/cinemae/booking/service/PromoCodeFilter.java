@@ -0,0 +1,138 @@
+package com.cinemae.booking.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over every code in promotion_codes, so a guessed code is turned away without
+ * a map lookup, a cache miss or a UNIQUE-index probe. "No" is certain; "maybe" goes on to the
+ * real lookup (about 1% of unknown codes at the sized load). Codes are added as they are
+ * issued here and whenever {@link PromotionIndex} reads them, and the whole filter is rebuilt
+ * from the table on a schedule, so codes written directly to the database or by another
+ * instance get in too. A Bloom filter can't forget: a deleted code stays a "maybe" until the
+ * next rebuild (deleting a whole promotion rebuilds at once), and outgrowing the size the filter
+ * was built for rebuilds it too. Until the first build succeeds every code is a "maybe".
+ */
+@Service
+public class PromoCodeFilter {
+
+    // ~1% false positives: 10 bits per code, 7 probes
+    private static final int BITS_PER_CODE = 10;
+    private static final int PROBES = 7;
+    private static final int MIN_CAPACITY = 1024;
+
+    private record Bits(AtomicLongArray words, long mask, int capacity) {}
+
+    private final JdbcTemplate jdbc;
+    private volatile Bits bits;
+    private final AtomicInteger added = new AtomicInteger();
+
+    public PromoCodeFilter(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            System.err.println("Promo code filter not built at startup, will retry on next code change: " + e.getMessage());
+        }
+    }
+
+    // full rebuild: codes other instances issued, and deleted codes dropped
+    @Scheduled(initialDelayString = "${app.promotions.reload:PT5M}", fixedDelayString = "${app.promotions.reload:PT5M}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            System.err.println("Promo code filter rebuild failed, keeping previous filter: " + e.getMessage());
+        }
+    }
+
+    /** False only if no such code was ever issued (trim and case are ignored). */
+    public boolean mightContain(String code) {
+        Bits b = bits;
+        if (b == null) return true;
+        if (code == null) return false;
+        long h = hash(code);
+        long h2 = (h >>> 32) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            long bit = (h + i * h2) & b.mask();
+            if ((b.words().get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    // serialized with rebuild so a code inserted while the table is being read isn't lost
+    public synchronized void add(String code) {
+        Bits b = bits;
+        if (b == null) {
+            rebuild(); // never built: the table read picks this code up too
+            return;
+        }
+        if (code == null) return;
+        // codes seen again on every index reload don't count towards the capacity
+        if (set(b, code) && added.incrementAndGet() > b.capacity()) rebuild();
+    }
+
+    public synchronized void rebuild() {
+        List<String> codes = new ArrayList<>();
+        jdbc.query("SELECT code FROM promotion_codes", rs -> {
+            codes.add(rs.getString(1));
+        });
+        // room to double before the next rebuild
+        int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, codes.size()) * 2) * 2);
+        long size = (long) capacity * BITS_PER_CODE;
+        size = Long.highestOneBit(size - 1) << 1; // power of two so a probe is a mask
+        Bits b = new Bits(new AtomicLongArray((int) (size >>> 6)), size - 1, capacity);
+        for (String code : codes) set(b, code);
+        added.set(codes.size());
+        bits = b;
+    }
+
+    // true if any bit was newly set
+    private static boolean set(Bits b, String code) {
+        long h = hash(code);
+        long h2 = (h >>> 32) | 1;
+        boolean changed = false;
+        for (int i = 0; i < PROBES; i++) {
+            long bit = (h + i * h2) & b.mask();
+            int word = (int) (bit >>> 6);
+            long m = 1L << bit;
+            long v;
+            do {
+                v = b.words().get(word);
+                if ((v & m) != 0) break;
+            } while (!b.words().compareAndSet(word, v, v | m));
+            changed |= (v & m) == 0;
+        }
+        return changed;
+    }
+
+    // FNV-1a over the trimmed, upper-cased code without building it, then a murmur3 finalizer
+    static long hash(String code) {
+        int from = 0, to = code.length();
+        while (from < to && Character.isWhitespace(code.charAt(from))) from++;
+        while (to > from && Character.isWhitespace(code.charAt(to - 1))) to--;
+        long h = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            h ^= Character.toUpperCase(code.charAt(i));
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,501 @@
+package com.cinemae.booking.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Enforces promotion_codes.max_redemptions in memory, across any number of instances. An
+ * instance leases budget for a capped code from its row in small chunks, with a conditional
+ * UPDATE that can never push redeemed_count past max_redemptions, and hands it out locally
+ * with CAS; codes with a large cap spread their leased budget over per-thread stripes, so a
+ * flash promo doesn't funnel every checkout through one counter. For capped codes
+ * redeemed_count therefore counts leased redemptions. Released redemptions of small-lease
+ * codes (single-use ones included) go straight back to the row, other unused leases on
+ * shutdown. What each instance holds (unused plus granted but not yet booked) is kept in
+ * promo_code_leases with a heartbeat, so {@link #reconcile} can lower a row that a crashed
+ * instance left too high. Uncapped codes only count: their redemptions accumulate per code
+ * and are added to redeemed_count in one batch every few seconds instead of one hot-row
+ * UPDATE per order.
+ */
+@Service
+public class PromoRedemptionLedger {
+
+    // caps up to this many redemptions use one plain counter
+    private static final int STRIPED_ABOVE = 64;
+    private static final int STRIPES = Integer.highestOneBit(Math.max(2, Runtime.getRuntime().availableProcessors()) * 2);
+    // longs per stripe slot, keeps neighbouring stripes off one cache line
+    private static final int PAD = 8;
+    // lease at most this share of a cap at a time (and never more than MAX_LEASE), so little
+    // budget sits idle on one instance while another runs out
+    private static final int LEASE_DIVISOR = 64;
+    private static final int MAX_LEASE = 100;
+    // an exhausted-looking code re-reads its row at most this often
+    private static final long RECHECK_NANOS = 1_000_000_000L;
+
+    /**
+     * A granted redemption; {@link #settle} it once the order is written, or give it back with
+     * {@link #release} if the order doesn't happen.
+     */
+    public record Redemption(long codeId, String code, int stripe) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final PromoCodeFilter filter;
+    private final long leaseTtlSeconds;
+    // this instance in promo_code_leases
+    private final String owner = UUID.randomUUID().toString();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public PromoRedemptionLedger(JdbcTemplate jdbc, PlatformTransactionManager txManager, PromoCodeFilter filter,
+                                 @Value("${app.promotions.lease-ttl:PT1M}") Duration leaseTtl) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.filter = filter;
+        this.leaseTtlSeconds = leaseTtl.toSeconds();
+    }
+
+    // Capped codes count leases ahead of use: redeemed_count below their live bookings can only
+    // be old data, and above live bookings plus what running instances hold it is budget a
+    // crashed instance never gave back. Uncapped counts are left alone, other instances may
+    // hold unflushed redemptions for them.
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.promotions.reconcile:PT10M}", fixedDelayString = "${app.promotions.reconcile:PT10M}")
+    public void reconcile() {
+        try {
+            jdbc.update("DELETE FROM promo_code_leases WHERE expires_at <= NOW()");
+            int raised = jdbc.update("UPDATE promotion_codes pc "
+                    + "JOIN (SELECT promo_code_id, COUNT(*) AS n FROM bookings "
+                    + "WHERE promo_code_id IS NOT NULL AND status IN ('PENDING', 'PAID') GROUP BY promo_code_id) b "
+                    + "ON b.promo_code_id = pc.id SET pc.redeemed_count = b.n "
+                    + "WHERE pc.max_redemptions IS NOT NULL AND pc.redeemed_count < b.n");
+            int lowered = jdbc.update("UPDATE promotion_codes pc "
+                    + "LEFT JOIN (SELECT promo_code_id, COUNT(*) AS n FROM bookings "
+                    + "WHERE promo_code_id IS NOT NULL AND status IN ('PENDING', 'PAID') GROUP BY promo_code_id) b "
+                    + "ON b.promo_code_id = pc.id "
+                    + "LEFT JOIN (SELECT code_id, SUM(held) AS h FROM promo_code_leases WHERE expires_at > NOW() GROUP BY code_id) l "
+                    + "ON l.code_id = pc.id "
+                    + "SET pc.redeemed_count = COALESCE(b.n, 0) + COALESCE(l.h, 0) "
+                    + "WHERE pc.max_redemptions IS NOT NULL AND pc.redeemed_count > COALESCE(b.n, 0) + COALESCE(l.h, 0)");
+            if (raised + lowered > 0) System.out.println("Reconciled redeemed_count of " + (raised + lowered) + " promotion codes");
+        } catch (Exception e) {
+            System.err.println("Could not reconcile promotion redemptions: " + e.getMessage());
+        }
+    }
+
+    /** Takes one redemption of {@code code}; empty if the code is unknown or used up. */
+    public Optional<Redemption> reserve(String code) {
+        Counter c = counter(code);
+        if (c == null) return Optional.empty();
+        int stripe = c.take();
+        return stripe < 0 ? Optional.empty() : Optional.of(new Redemption(c.id, c.code, stripe));
+    }
+
+    public void release(Redemption redemption) {
+        Counter c = counters.get(redemption.code());
+        if (c != null && c.id == redemption.codeId()) c.giveBack(redemption.stripe());
+    }
+
+    /** The order using {@code redemption} is written; it now counts as a booking, not as held here. */
+    public void settle(Redemption redemption) {
+        Counter c = counters.get(redemption.code());
+        if (c != null && c.id == redemption.codeId()) c.settled();
+    }
+
+    /**
+     * Redemptions so far; -1 for unknown codes. Other instances are only seen as of this
+     * instance's last look at the row (for uncapped codes, as of their last flush).
+     */
+    public long redeemed(String code) {
+        Counter c = counter(code);
+        if (c == null) return -1;
+        return c.limit < 0 ? c.flushed + c.unflushed.sum() : c.dbRedeemed - c.local();
+    }
+
+    /** Redemptions left, or -1 for unknown and uncapped codes; as of the last lease. */
+    public long remaining(String code) {
+        Counter c = counter(code);
+        return c == null || c.limit < 0 ? -1 : c.remaining();
+    }
+
+    /**
+     * Seeds a code's counter from a row already read elsewhere, or refreshes what a loaded one
+     * knows of the row. A changed max_redemptions replaces the counter.
+     */
+    public void track(long codeId, String code, long maxRedemptions, long redeemed) {
+        String key = key(code);
+        Counter existing = counters.putIfAbsent(key, new Counter(codeId, key, maxRedemptions, redeemed));
+        if (existing == null || existing.id != codeId) return;
+        if (existing.limit != maxRedemptions) {
+            if (counters.replace(key, existing, new Counter(codeId, key, maxRedemptions, redeemed))) retire(existing);
+        } else if (existing.limit >= 0) {
+            // other instances' leases since we last looked
+            existing.refresh(redeemed);
+        }
+    }
+
+    /** Added or deleted code: the next use reads it afresh; unflushed redemptions of a deleted row are dropped. */
+    public void forget(String code) {
+        if (code != null) counters.remove(key(code));
+    }
+
+    public void forgetCodeId(long codeId) {
+        counters.values().removeIf(c -> c.id == codeId);
+    }
+
+    public void forgetPromotion(long promotionId) {
+        // codes are few per running promotion and this is an admin action
+        jdbc.queryForList("SELECT code FROM promotion_codes WHERE promotion_id = ?", String.class, promotionId)
+                .forEach(this::forget);
+    }
+
+    public int loadedCodes() {
+        return counters.size();
+    }
+
+    // --- flushing ---
+
+    /** Adds accumulated redemptions of uncapped codes to redeemed_count in one batch; returns the number of codes written. */
+    @Scheduled(fixedDelayString = "${app.promotions.flush:PT5S}")
+    public synchronized int flush() {
+        List<Counter> batch = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        for (Counter c : counters.values()) {
+            long delta = c.unflushed.sum();
+            if (delta == 0) continue;
+            batch.add(c);
+            deltas.add(delta);
+            rows.add(new Object[]{delta, c.id});
+        }
+        if (rows.isEmpty()) return 0;
+        try {
+            jdbc.batchUpdate("UPDATE promotion_codes SET redeemed_count = GREATEST(0, CAST(redeemed_count AS SIGNED) + ?) "
+                    + "WHERE id = ?", rows);
+        } catch (Exception e) {
+            System.err.println("Promotion redemption flush failed, will retry: " + e.getMessage());
+            return 0;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Counter c = batch.get(i);
+            long delta = deltas.get(i);
+            c.unflushed.add(-delta);
+            c.flushed += delta;
+        }
+        return rows.size();
+    }
+
+    // Keeps this instance's promo_code_leases rows alive and brings their held counts down as
+    // redemptions are booked or returned. Counts only ever go up inside lease(), in the same
+    // transaction as the row, so reconcile never sees a lease it can't account for.
+    @Scheduled(fixedDelayString = "${app.promotions.flush:PT5S}")
+    public void heartbeat() {
+        try {
+            for (Counter c : counters.values()) {
+                if (c.limit >= 0) c.writeHeld();
+            }
+            jdbc.update("UPDATE promo_code_leases SET expires_at = NOW() + INTERVAL ? SECOND WHERE owner = ?",
+                    leaseTtlSeconds, owner);
+        } catch (Exception e) {
+            System.err.println("Promotion lease heartbeat failed, will retry: " + e.getMessage());
+        }
+    }
+
+    // flush counts, and give unused leased budget back to the rows for the other instances
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        List<Object[]> rows = new ArrayList<>();
+        for (Counter c : counters.values()) {
+            long unused = c.drain();
+            if (unused > 0) rows.add(new Object[]{unused, c.id});
+        }
+        try {
+            if (!rows.isEmpty()) {
+                jdbc.batchUpdate("UPDATE promotion_codes SET redeemed_count = GREATEST(0, CAST(redeemed_count AS SIGNED) - ?) "
+                        + "WHERE id = ?", rows);
+            }
+            jdbc.update("DELETE FROM promo_code_leases WHERE owner = ?", owner);
+        } catch (Exception e) {
+            System.err.println("Could not return leased promotion redemptions: " + e.getMessage());
+        }
+    }
+
+    // --- counters ---
+
+    // a replaced counter: leased budget goes back to the row, counted redemptions onto it
+    private void retire(Counter c) {
+        long delta;
+        synchronized (c) {
+            c.retired = true;
+            delta = c.unflushed.sumThenReset() - c.drain();
+        }
+        if (delta == 0) return;
+        try {
+            jdbc.update("UPDATE promotion_codes SET redeemed_count = GREATEST(0, CAST(redeemed_count AS SIGNED) + ?) "
+                    + "WHERE id = ?", delta, c.id);
+        } catch (Exception e) {
+            System.err.println("Could not settle replaced counter of promotion code " + c.code + ": " + e.getMessage());
+        }
+    }
+
+    private Counter counter(String code) {
+        // unknown codes aren't cached, so without the filter every miss would be a query
+        if (code == null || code.isBlank() || !filter.mightContain(code)) return null;
+        return counters.computeIfAbsent(key(code), this::load);
+    }
+
+    private Counter load(String code) {
+        List<Counter> found = jdbc.query("SELECT id, code, max_redemptions, redeemed_count FROM promotion_codes WHERE code = ?",
+                (rs, rowNum) -> {
+                    long max = rs.getLong("max_redemptions");
+                    return new Counter(rs.getLong("id"), code, rs.wasNull() ? -1 : max, rs.getLong("redeemed_count"));
+                }, code);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private static String key(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private final class Counter {
+        final long id;
+        final String code;
+        final long limit; // -1: unlimited
+        final long leaseSize;
+        // leased but not yet handed to a stripe (or, for small caps, simply what's left here)
+        final AtomicLong pool = new AtomicLong();
+        // per-stripe budgets for large caps, null otherwise
+        final AtomicLongArray stripes;
+        // uncapped codes only
+        final LongAdder unflushed = new LongAdder();
+        volatile long flushed;
+        // capped codes: redeemed_count as last seen, our leases included
+        volatile long dbRedeemed;
+        // capped codes: granted and neither settled nor released yet
+        final AtomicLong inFlight = new AtomicLong();
+        // capped codes: held as last written to promo_code_leases, guarded by "this"
+        long heldWritten;
+        // System.nanoTime() of the last read of the row by remaining()
+        volatile long checkedAt;
+        // replaced after a max_redemptions change; leases no more
+        volatile boolean retired;
+
+        Counter(long id, String code, long limit, long redeemed) {
+            this.id = id;
+            this.code = code;
+            this.limit = limit;
+            this.flushed = redeemed;
+            this.dbRedeemed = redeemed;
+            this.leaseSize = Math.max(1, Math.min(MAX_LEASE, limit / LEASE_DIVISOR));
+            this.stripes = limit > STRIPED_ABOVE ? new AtomicLongArray(STRIPES * PAD) : null;
+        }
+
+        // stripe used, 0 when unstriped, -1 when exhausted
+        int take() {
+            if (limit < 0) {
+                unflushed.increment();
+                return 0;
+            }
+            // counted before the budget leaves the pool, so held() may run high but never low
+            inFlight.incrementAndGet();
+            if (stripes == null) {
+                do {
+                    if (decrement(pool)) return 0;
+                } while (lease());
+            } else {
+                int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+                // a concurrent refill can move the last budget between stripes while we look
+                do {
+                    if (decrement(stripes, stripe) || refill(stripe) || steal()) return stripe;
+                } while (local() > 0 || lease());
+            }
+            inFlight.decrementAndGet();
+            return -1;
+        }
+
+        void giveBack(int stripe) {
+            if (limit < 0) {
+                unflushed.decrement();
+                return;
+            }
+            if (stripes == null || leaseSize == 1) {
+                // single-use and other small codes: a redemption held here would read as used up
+                // everywhere else, and for good if this instance died
+                returnOne();
+            } else {
+                // a large cap: stays leased to this instance
+                stripes.incrementAndGet(stripe * PAD);
+            }
+            // may have been granted by a counter this one replaced
+            decrement(inFlight);
+        }
+
+        void settled() {
+            if (limit >= 0) decrement(inFlight);
+        }
+
+        // leased here and not handed out, plus handed out and not booked yet
+        long held() {
+            return local() + inFlight.get();
+        }
+
+        // leased here and not handed out
+        long local() {
+            long left = pool.get();
+            if (stripes != null) for (int i = 0; i < STRIPES; i++) left += stripes.get(i * PAD);
+            return left;
+        }
+
+        long remaining() {
+            long left = local() + Math.max(0, limit - dbRedeemed);
+            // refresh() only ever raises dbRedeemed, so budget returned elsewhere shows up here
+            if (left == 0 && System.nanoTime() - checkedAt > RECHECK_NANOS) {
+                recheck();
+                left = local() + Math.max(0, limit - dbRedeemed);
+            }
+            return left;
+        }
+
+        // takes all unused budget out, for giving it back
+        long drain() {
+            if (limit < 0) return 0;
+            long left = pool.getAndSet(0);
+            if (stripes != null) for (int i = 0; i < STRIPES; i++) left += stripes.getAndSet(i * PAD, 0);
+            return left;
+        }
+
+        // the caller read the row without our lock, maybe before our latest lease: never go back
+        synchronized void refresh(long redeemed) {
+            dbRedeemed = Math.max(dbRedeemed, redeemed);
+        }
+
+        // under our lock no lease or return of ours is in flight, so the row is the whole truth
+        private synchronized void recheck() {
+            checkedAt = System.nanoTime();
+            try {
+                List<Long> now = jdbc.queryForList("SELECT redeemed_count FROM promotion_codes WHERE id = ?", Long.class, id);
+                if (!now.isEmpty()) dbRedeemed = now.get(0);
+            } catch (Exception e) {
+                System.err.println("Could not re-read promotion code " + code + ": " + e.getMessage());
+            }
+        }
+
+        // lowering is always safe to write late: reconcile only ever sees too much held, never too little
+        synchronized void writeHeld() {
+            long held = held();
+            if (held == heldWritten) return;
+            if (held == 0) {
+                jdbc.update("DELETE FROM promo_code_leases WHERE owner = ? AND code_id = ?", owner, id);
+            } else {
+                // an upsert: reconcile drops our rows if the heartbeat was down for a whole TTL
+                jdbc.update("INSERT INTO promo_code_leases (owner, code_id, held, expires_at) "
+                        + "VALUES (?, ?, ?, NOW() + INTERVAL ? SECOND) ON DUPLICATE KEY UPDATE held = VALUES(held)",
+                        owner, id, held, leaseTtlSeconds);
+            }
+            heldWritten = held;
+        }
+
+        private synchronized void returnOne() {
+            try {
+                // 0 rows: reconcile has already taken it back from the row
+                if (jdbc.update("UPDATE promotion_codes SET redeemed_count = redeemed_count - 1 "
+                        + "WHERE id = ? AND redeemed_count > 0", id) == 1) {
+                    dbRedeemed--;
+                }
+            } catch (Exception e) {
+                System.err.println("Could not return promotion redemption of " + code + ", keeping it here: " + e.getMessage());
+                pool.incrementAndGet();
+            }
+        }
+
+        // leases the next chunk from the row; false once the cap is reached
+        private synchronized boolean lease() {
+            if (local() > 0) return true; // another thread leased while we waited
+            if (retired) return false;
+            for (int attempt = 0; attempt < 5; attempt++) {
+                long n = Math.min(leaseSize, limit - dbRedeemed);
+                if (n > 0) {
+                    // the row and what we say we hold move together
+                    Long held = tx.execute(status -> {
+                        int updated = jdbc.update("UPDATE promotion_codes SET redeemed_count = redeemed_count + ? "
+                                + "WHERE id = ? AND redeemed_count + ? <= max_redemptions", n, id, n);
+                        if (updated != 1) return null;
+                        long h = held() + n;
+                        jdbc.update("INSERT INTO promo_code_leases (owner, code_id, held, expires_at) "
+                                + "VALUES (?, ?, ?, NOW() + INTERVAL ? SECOND) "
+                                + "ON DUPLICATE KEY UPDATE held = VALUES(held), expires_at = VALUES(expires_at)",
+                                owner, id, h, leaseTtlSeconds);
+                        return h;
+                    });
+                    if (held != null) {
+                        heldWritten = held;
+                        dbRedeemed += n;
+                        pool.addAndGet(n);
+                        return true;
+                    }
+                } else if (attempt > 0) {
+                    return false;
+                }
+                // other instances moved the row (or released budget): look again
+                List<Long> now = jdbc.queryForList("SELECT redeemed_count FROM promotion_codes WHERE id = ?", Long.class, id);
+                if (now.isEmpty()) return false;
+                dbRedeemed = now.get(0);
+            }
+            return false;
+        }
+
+        // moves a chunk of the pool to this stripe, keeping one for the caller
+        private boolean refill(int stripe) {
+            while (true) {
+                long left = pool.get();
+                if (left == 0) return false;
+                long chunk = Math.max(1, Math.min(left / (2L * STRIPES), 32));
+                if (pool.compareAndSet(left, left - chunk)) {
+                    if (chunk > 1) stripes.addAndGet(stripe * PAD, chunk - 1);
+                    return true;
+                }
+            }
+        }
+
+        // last few redemptions may sit in other stripes
+        private boolean steal() {
+            for (int i = 0; i < STRIPES; i++) {
+                if (decrement(stripes, i)) return true;
+            }
+            return false;
+        }
+
+        private static boolean decrement(AtomicLong n) {
+            long v;
+            do {
+                v = n.get();
+                if (v <= 0) return false;
+            } while (!n.compareAndSet(v, v - 1));
+            return true;
+        }
+
+        private boolean decrement(AtomicLongArray a, int stripe) {
+            int i = stripe * PAD;
+            long v;
+            do {
+                v = a.get(i);
+                if (v <= 0) return false;
+            } while (!a.compareAndSet(i, v, v - 1));
+            return true;
+        }
+    }
+}
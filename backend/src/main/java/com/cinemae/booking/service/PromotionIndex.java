@@ -0,0 +1,215 @@
+package com.cinemae.booking.service;
+
+import com.cinemae.booking.api.PromotionDto;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Promotions that are running or still to come, with their codes, held in memory. Checkout
+ * validates a code against this snapshot without SQL; the snapshot is rebuilt after every
+ * promotion write, while codes added or deleted one by one (or a generated batch at a time) are
+ * put into or taken out of it in place, so a code edit costs nothing per existing code. The list of currently active promotions is recomputed by a one-shot task
+ * timed for the next starts_at / ends_at boundary, so promotions switch on and off at the
+ * exact instant rather than on the next poll.
+ */
+@Service
+public class PromotionIndex {
+
+    public enum Status { VALID, UNKNOWN, INACTIVE, NOT_STARTED, EXPIRED, EXHAUSTED }
+
+    /** Outcome of a code check; {@code promotion} is set whenever the code exists. */
+    public record Validation(Status status, String code, Long codeId, PromotionDto promotion) {
+
+        public boolean valid() {
+            return status == Status.VALID;
+        }
+
+        /** Percent off in basis points (12.5% = 1250), 0 if the promotion is a flat discount. */
+        public long percentOffBasisPoints() {
+            BigDecimal pct = promotion == null ? null : promotion.percentOff();
+            return pct == null ? 0 : pct.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        }
+
+        public long flatOffCents() {
+            return promotion == null || promotion.flatOffCents() == null ? 0 : promotion.flatOffCents();
+        }
+
+        /** Discount on {@code subtotalCents}, rounded as {@link OrderQuoteCalculator} does at checkout. */
+        public long discountCents(long subtotalCents) {
+            return valid() ? OrderQuoteCalculator.discountCents(subtotalCents, percentOffBasisPoints(), flatOffCents()) : 0;
+        }
+    }
+
+    private record Code(long id, long promotionId, String code) {}
+
+    // codes is written in place by code adds and deletes, one immutable Code per key
+    private record Snapshot(Map<Long, PromotionDto> promotions, Map<String, Code> codes) {}
+
+    private static final String CODE_COLUMNS = "pc.id, pc.promotion_id, pc.code, pc.max_redemptions, pc.redeemed_count";
+
+    private final JdbcTemplate jdbc;
+    private final TaskScheduler scheduler;
+    private final PromoRedemptionLedger redemptions;
+    private final CatalogVersions versions;
+    private final PromoCodeFilter filter;
+
+    private volatile Snapshot snapshot;
+    private volatile List<PromotionDto> active = List.of();
+    private ScheduledFuture<?> nextBoundary;
+
+    public PromotionIndex(JdbcTemplate jdbc, TaskScheduler scheduler, PromoRedemptionLedger redemptions,
+                          CatalogVersions versions, PromoCodeFilter filter) {
+        this.jdbc = jdbc;
+        this.scheduler = scheduler;
+        this.redemptions = redemptions;
+        this.versions = versions;
+        this.filter = filter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reload();
+        } catch (Exception e) {
+            System.err.println("Promotion index not built at startup, will retry on first use: " + e.getMessage());
+        }
+    }
+
+    // picks up promotions edited directly in the database
+    @Scheduled(initialDelayString = "${app.promotions.reload:PT5M}", fixedDelayString = "${app.promotions.reload:PT5M}")
+    public void scheduledReload() {
+        try {
+            reload();
+        } catch (Exception e) {
+            System.err.println("Promotion index reload failed, keeping previous snapshot: " + e.getMessage());
+        }
+    }
+
+    public Validation validate(String code) {
+        return validate(code, LocalDateTime.now());
+    }
+
+    public Validation validate(String code, LocalDateTime at) {
+        // guesses stop at the filter
+        if (code == null || code.isBlank() || !filter.mightContain(code)) return new Validation(Status.UNKNOWN, code, null, null);
+        Snapshot s = current();
+        Code c = s.codes().get(key(code));
+        PromotionDto p = c == null ? null : s.promotions().get(c.promotionId());
+        if (p == null) return new Validation(Status.UNKNOWN, code, null, null);
+
+        Status status;
+        if (!p.active()) status = Status.INACTIVE;
+        else if (at.isBefore(p.startsAt())) status = Status.NOT_STARTED;
+        else if (!at.isBefore(p.endsAt())) status = Status.EXPIRED;
+        else if (redemptions.remaining(c.code()) == 0) status = Status.EXHAUSTED;
+        else status = Status.VALID;
+        return new Validation(status, c.code(), c.id(), p);
+    }
+
+    /** Promotions running right now, soonest ending first. */
+    public List<PromotionDto> active() {
+        current();
+        return active;
+    }
+
+    // --- building ---
+
+    public synchronized void reload() {
+        Map<Long, PromotionDto> promotions = new HashMap<>();
+        for (PromotionDto p : jdbc.query("SELECT * FROM promotions WHERE ends_at > NOW()", PromotionDto.ROW_MAPPER)) {
+            promotions.put(p.id(), p);
+        }
+        Map<String, Code> codes = new ConcurrentHashMap<>();
+        jdbc.query("SELECT " + CODE_COLUMNS + " FROM promotion_codes pc "
+                + "JOIN promotions p ON p.id = pc.promotion_id WHERE p.ends_at > NOW()", rs -> {
+            index(rs, codes);
+        });
+        snapshot = new Snapshot(promotions, codes);
+        onBoundary();
+    }
+
+    /** Puts newly inserted codes into the snapshot; codes of promotions it doesn't hold are skipped. */
+    public synchronized void addCodes(Collection<String> added) {
+        Snapshot s = snapshot;
+        // not built yet: the first use reads everything anyway
+        if (s == null || added.isEmpty()) return;
+        List<String> keys = added.stream().map(PromotionIndex::key).toList();
+        jdbc.query("SELECT " + CODE_COLUMNS + " FROM promotion_codes pc WHERE pc.code IN ("
+                + String.join(", ", Collections.nCopies(keys.size(), "?")) + ")", rs -> {
+            if (!s.promotions().containsKey(rs.getLong("promotion_id"))) return;
+            // a code deleted and added again has a new id, the old counter has to go
+            redemptions.forget(rs.getString("code"));
+            index(rs, s.codes());
+        }, keys.toArray());
+    }
+
+    /** Takes a deleted code out of the snapshot. */
+    public synchronized void removeCode(long codeId, String code) {
+        Snapshot s = snapshot;
+        if (s != null && code != null) s.codes().computeIfPresent(key(code), (k, c) -> c.id() == codeId ? null : c);
+        redemptions.forgetCodeId(codeId);
+    }
+
+    // one promotion_codes row into the index, the filter and the redemption counters
+    private void index(ResultSet rs, Map<String, Code> codes) throws SQLException {
+        String code = key(rs.getString("code"));
+        codes.put(code, new Code(rs.getLong("id"), rs.getLong("promotion_id"), code));
+        // the filter must never say no to a code we can see, e.g. one inserted by another instance
+        filter.add(code);
+        long max = rs.getLong("max_redemptions");
+        // counters start from the same read, so validating a code needs no lookup there either
+        redemptions.track(rs.getLong("id"), code, rs.wasNull() ? -1 : max, rs.getLong("redeemed_count"));
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null) reload();
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    // recompute the active list from the snapshot and arm the next boundary
+    private synchronized void onBoundary() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PromotionDto> running = new ArrayList<>();
+        LocalDateTime next = null;
+        for (PromotionDto p : snapshot.promotions().values()) {
+            if (!p.active()) continue;
+            if (!now.isBefore(p.startsAt()) && now.isBefore(p.endsAt())) running.add(p);
+            for (LocalDateTime t : List.of(p.startsAt(), p.endsAt())) {
+                if (t.isAfter(now) && (next == null || t.isBefore(next))) next = t;
+            }
+        }
+        running.sort(Comparator.comparing(PromotionDto::endsAt));
+        boolean changed = !running.equals(active);
+        // publish first: the new ETag must never be paired with the old list
+        active = List.copyOf(running);
+        if (changed) versions.bump(CatalogVersions.Table.PROMOTIONS);
+
+        if (nextBoundary != null) nextBoundary.cancel(false);
+        nextBoundary = next == null ? null
+                : scheduler.schedule(this::onBoundary, next.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static String key(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,76 @@
+package com.cinemae.booking.service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Free runs (maximal blocks of adjacent available seats) per row of one showtime, overall and
+ * per seat type. Seat changes only bump the touched rows' versions; a row's runs are rebuilt
+ * lazily the next time someone asks, so a lookup costs one pass over the rows plus a rebuild
+ * of whatever changed since the last one.
+ */
+final class RowRunIndex {
+
+    // slot 0: any seat type, slot 1 + t: only seats of type t
+    static final int ANY = -1;
+
+    /** Runs of one row as parallel arrays of start index and length. */
+    record Runs(int[] start, int[] length, int max) {}
+
+    private record RowState(long version, Runs[] byType) {}
+
+    private final ShowtimeSeats seats;
+    private final AuditoriumLayout layout;
+    private final AtomicLongArray versions;
+    private final AtomicReferenceArray<RowState> cache;
+
+    RowRunIndex(ShowtimeSeats seats) {
+        this.seats = seats;
+        this.layout = seats.layout();
+        this.versions = new AtomicLongArray(layout.rowCount());
+        this.cache = new AtomicReferenceArray<>(layout.rowCount());
+    }
+
+    void touch(int[] indexes) {
+        for (int index : indexes) versions.incrementAndGet(layout.rowOf(index));
+    }
+
+    Runs runs(int row, int type) {
+        long version = versions.get(row);
+        RowState state = cache.get(row);
+        if (state == null || state.version() != version) {
+            // read the version first: a change during the rebuild leaves the entry stale, not wrong
+            state = new RowState(version, build(row));
+            cache.set(row, state);
+        }
+        return state.byType()[type + 1];
+    }
+
+    private Runs[] build(int row) {
+        int from = layout.rowStart(row);
+        int to = layout.rowEnd(row);
+        int types = AuditoriumLayout.SEAT_TYPES.size();
+        Runs[] out = new Runs[types + 1];
+        for (int t = ANY; t < types; t++) {
+            int[] starts = new int[to - from];
+            int[] lengths = new int[to - from];
+            int n = 0, max = 0;
+            int runStart = -1;
+            for (int i = from; i <= to; i++) {
+                boolean free = i < to && seats.status(i) == ShowtimeSeats.AVAILABLE
+                        && (t == ANY || layout.typeOf(i) == t);
+                boolean continues = free && runStart >= 0 && layout.adjacentToPrevious(i);
+                if (runStart >= 0 && !continues) {
+                    starts[n] = runStart;
+                    lengths[n] = i - runStart;
+                    max = Math.max(max, lengths[n++]);
+                    runStart = -1;
+                }
+                if (free && runStart < 0) runStart = i;
+            }
+            out[t + 1] = new Runs(Arrays.copyOf(starts, n), Arrays.copyOf(lengths, n), max);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,264 @@
+package com.cinemae.booking.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Live seat changes over Server-Sent Events. Each showtime with subscribers has one channel:
+ * a ring of already-encoded delta events shared by all of its subscribers, each of which only
+ * keeps a cursor into it. Sends run on a small pool, one in flight per subscriber (heartbeats
+ * included). Servlet writes block, so a client whose send hasn't finished within the send
+ * timeout is dropped, which aborts the stuck write and frees its sender thread; until then it
+ * occupies one of the pool's threads. A client that falls more than the ring's capacity behind
+ * is dropped too and reconnects with a fresh snapshot.
+ */
+@Service
+public class SeatEventHub {
+
+    private static final String[] STATUS = {"available", "held", "sold"};
+
+    private final SeatMapService seatMaps;
+    private final int ringSize;
+    private final long streamTimeout;
+    private final long sendTimeoutNanos;
+    private final ExecutorService senders;
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    public SeatEventHub(SeatMapService seatMaps,
+                        @Value("${app.seats.stream.buffer:256}") int buffer,
+                        @Value("${app.seats.stream.timeout:PT30M}") Duration timeout,
+                        @Value("${app.seats.stream.senders:4}") int senders,
+                        @Value("${app.seats.stream.send-timeout:PT5S}") Duration sendTimeout) {
+        this.seatMaps = seatMaps;
+        this.ringSize = Integer.highestOneBit(Math.max(buffer, 16) - 1) << 1;
+        this.streamTimeout = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.senders = Executors.newFixedThreadPool(senders, r -> {
+            Thread t = new Thread(r, "seat-events");
+            t.setDaemon(true);
+            return t;
+        });
+        seatMaps.onLoad(seats -> seats.listen(this::onChanged));
+    }
+
+    /**
+     * Opens a stream. With a {@code lastEventId} still inside the ring the client resumes where
+     * it left off; otherwise it starts with a "snapshot" event of every non-available seat.
+     */
+    public SseEmitter subscribe(ShowtimeSeats seats, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(streamTimeout);
+        Subscriber sub = new Subscriber(emitter);
+        // deltas wait until the snapshot is out
+        sub.sending.set(true);
+
+        boolean[] resumed = {false};
+        // joined inside compute, so a concurrent last unsubscribe can't drop the channel under us
+        Channel channel = channels.compute(seats.showtimeId(), (id, c) -> {
+            if (c == null) c = new Channel(ringSize);
+            long resumeFrom = parseEventId(c, lastEventId);
+            synchronized (c) {
+                // cursor first, snapshot second: a change in between is sent twice, never lost
+                sub.cursor = c.head;
+                if (resumeFrom >= 0 && resumeFrom <= c.head && c.head - resumeFrom < ringSize) {
+                    sub.cursor = resumeFrom;
+                    resumed[0] = true;
+                }
+                c.subscribers.add(sub);
+            }
+            return c;
+        });
+        Runnable remove = () -> unsubscribe(seats.showtimeId(), channel, sub);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        if (!resumed[0]) {
+            try {
+                send(sub, SseEmitter.event().name("snapshot").data(snapshot(seats), MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+                return emitter;
+            }
+        }
+        sub.sending.set(false);
+        dispatch(channel, sub);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return channels.values().stream().mapToInt(c -> c.subscribers.size()).sum();
+    }
+
+    // keeps proxies from closing idle streams and flushes out dead clients; a subscriber with a
+    // send in flight is skipped, that send keeps its stream alive (or gets it dropped)
+    @Scheduled(fixedRate = 20000)
+    public void heartbeat() {
+        for (Channel channel : channels.values()) {
+            for (Subscriber sub : channel.subscribers) {
+                if (!sub.sending.compareAndSet(false, true)) continue;
+                senders.execute(() -> {
+                    try {
+                        send(sub, SseEmitter.event().comment("hb"));
+                    } catch (Exception e) {
+                        sub.emitter.completeWithError(e);
+                        return;
+                    } finally {
+                        sub.sending.set(false);
+                    }
+                    // deltas that arrived meanwhile
+                    if (sub.cursor < channel.head) dispatch(channel, sub);
+                });
+            }
+        }
+    }
+
+    // drops clients whose send is stuck; completing the emitter aborts the blocked write
+    @Scheduled(fixedRate = 1000)
+    public void dropStalled() {
+        long now = System.nanoTime();
+        channels.forEach((showtimeId, channel) -> {
+            for (Subscriber sub : channel.subscribers) {
+                long started = sub.sendStarted;
+                if (started != 0 && now - started > sendTimeoutNanos) {
+                    unsubscribe(showtimeId, channel, sub);
+                    sub.emitter.completeWithError(new IOException("seat event send timed out"));
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        channels.values().forEach(c -> c.subscribers.forEach(s -> s.emitter.complete()));
+    }
+
+    // --- publishing ---
+
+    private void onChanged(ShowtimeSeats seats, int[] indexes, int status, long version) {
+        Channel channel = channels.get(seats.showtimeId());
+        if (channel == null) return;
+
+        // current state, not the reported one: with concurrent changes the last event sent for a
+        // seat then always matches the bitmap even if events are appended out of order
+        StringBuilder json = new StringBuilder(32 + indexes.length * 24).append("{\"v\":").append(version).append(",\"seats\":{");
+        for (int i = 0; i < indexes.length; i++) {
+            if (i > 0) json.append(',');
+            json.append('"').append(seats.layout().seat(indexes[i]).id()).append("\":\"")
+                    .append(STATUS[seats.status(indexes[i])]).append('"');
+        }
+        String event = json.append("}}").toString();
+
+        synchronized (channel) {
+            channel.ring.set((int) (channel.head & (ringSize - 1)), event);
+            channel.head++;
+        }
+        for (Subscriber sub : channel.subscribers) dispatch(channel, sub);
+    }
+
+    private void dispatch(Channel channel, Subscriber sub) {
+        if (sub.sending.compareAndSet(false, true)) senders.execute(() -> drain(channel, sub));
+    }
+
+    private void drain(Channel channel, Subscriber sub) {
+        try {
+            do {
+                long head = channel.head;
+                while (sub.cursor < head) {
+                    long seq = sub.cursor;
+                    String event = channel.ring.get((int) (seq & (ringSize - 1)));
+                    // the slot is reused once head reaches seq + ringSize; past that the read may be stale
+                    if (channel.head - seq >= ringSize) {
+                        sub.emitter.send(SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+                        sub.emitter.complete();
+                        return;
+                    }
+                    send(sub, SseEmitter.event().id(channel.epoch + ":" + (seq + 1)).name("seats")
+                            .data(event, MediaType.APPLICATION_JSON));
+                    sub.cursor = seq + 1;
+                }
+                sub.sending.set(false);
+                // an event may have landed after the last head read
+            } while (sub.cursor < channel.head && sub.sending.compareAndSet(false, true));
+        } catch (Exception e) {
+            sub.emitter.completeWithError(e);
+        }
+    }
+
+    private static void send(Subscriber sub, SseEmitter.SseEventBuilder event) throws IOException {
+        synchronized (sub) {
+            sub.sendStarted = System.nanoTime() | 1; // never 0 while sending
+            try {
+                sub.emitter.send(event);
+            } finally {
+                sub.sendStarted = 0;
+            }
+        }
+    }
+
+    private void unsubscribe(long showtimeId, Channel channel, Subscriber sub) {
+        channel.subscribers.remove(sub);
+        channels.computeIfPresent(showtimeId, (id, c) -> c.subscribers.isEmpty() ? null : c);
+    }
+
+    private Map<String, Object> snapshot(ShowtimeSeats seats) {
+        long version = seats.version();
+        Map<String, String> taken = new LinkedHashMap<>();
+        for (int i = 0; i < seats.layout().size(); i++) {
+            int status = seats.status(i);
+            if (status != ShowtimeSeats.AVAILABLE) taken.put(Long.toString(seats.layout().seat(i).id()), STATUS[status]);
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("v", version);
+        out.put("seats", taken);
+        return out;
+    }
+
+    // "<channel epoch>:<next sequence>"; ids from an earlier channel of the same showtime don't resume
+    private static long parseEventId(Channel channel, String id) {
+        if (id == null) return -1;
+        int colon = id.indexOf(':');
+        if (colon < 0 || !id.substring(0, colon).equals(channel.epoch)) return -1;
+        try {
+            return Long.parseLong(id.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class Channel {
+        final String epoch = Long.toString(System.nanoTime(), 36);
+        final AtomicReferenceArray<String> ring;
+        // sequence number of the next event; events [head - ring.length, head) are in the ring
+        volatile long head;
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+        Channel(int size) {
+            this.ring = new AtomicReferenceArray<>(size);
+        }
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final AtomicBoolean sending = new AtomicBoolean();
+        // next sequence to send; only touched by the sender holding "sending"
+        volatile long cursor;
+        // System.nanoTime() when the current send began, 0 when none is in flight
+        volatile long sendStarted;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.cinemae.booking.service;
+
+/**
+ * Seats claimed in memory for one customer until {@code expiresAt} (epoch millis, whole
+ * seconds so it round-trips through seat_locks.expires_at). The seat_locks rows of a hold are
+ * matched on (showtime_id, seat_id, expires_at), so they can't be confused with a later hold
+ * on the same seats.
+ */
+public record SeatHold(
+        String id,
+        long showtimeId,
+        int[] seatIndexes,
+        long[] seatIds,
+        Long userId,
+        long expiresAt
+) {
+}
@@ -0,0 +1,169 @@
+package com.cinemae.booking.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind for seat_locks. Holds are decided in memory by {@link ShowtimeSeats}; this
+ * thread persists them in batches (one transaction per batch) so a reservation rush costs a
+ * few multi-row commits instead of one contended insert per request. The uq_lock key is only
+ * a backstop: after each insert batch the rows are read back, and a hold whose rows still
+ * belong to another live lock is reported through its callback.
+ */
+@Service
+public class SeatLockWriter {
+
+    // take over rows whose lock already lapsed; expires_at is assigned last so the IFs see the old value
+    private static final String INSERT_SQL = "INSERT INTO seat_locks (showtime_id, seat_id, user_id, locked_at, expires_at) "
+            + "VALUES (?, ?, ?, NOW(), ?) ON DUPLICATE KEY UPDATE "
+            + "user_id = IF(expires_at <= NOW(), VALUES(user_id), user_id), "
+            + "locked_at = IF(expires_at <= NOW(), VALUES(locked_at), locked_at), "
+            + "expires_at = IF(expires_at <= NOW(), VALUES(expires_at), expires_at)";
+    // rows per read-back query; each row is three parameters
+    private static final int CHECK_CHUNK = 500;
+    private static final String DELETE_SQL = "DELETE FROM seat_locks WHERE showtime_id = ? AND seat_id = ? AND expires_at = ?";
+
+    private record Op(boolean insert, SeatHold hold, Consumer<SeatHold> onConflict) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final int maxBatch;
+    private final BlockingQueue<Op> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public SeatLockWriter(JdbcTemplate jdbc, PlatformTransactionManager txManager,
+                          @Value("${app.seats.write-batch:500}") int maxBatch) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.maxBatch = maxBatch;
+        this.worker = new Thread(this::run, "seat-lock-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void insert(SeatHold hold, Consumer<SeatHold> onConflict) {
+        queue.add(new Op(true, hold, onConflict));
+    }
+
+    public void delete(SeatHold hold) {
+        queue.add(new Op(false, hold, null));
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(5000);
+        // whatever is still queued goes out on the caller's thread
+        List<Op> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) flush(rest);
+    }
+
+    private void run() {
+        List<Op> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Op first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // memory stays authoritative; the rows are a backstop and a restart aid
+                System.err.println("seat_locks write-behind failed for " + batch.size() + " ops: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Op> ops) {
+        // consecutive ops of the same kind share one JDBC batch; order between kinds is preserved
+        tx.executeWithoutResult(status -> {
+            int from = 0;
+            while (from < ops.size()) {
+                boolean insert = ops.get(from).insert();
+                int to = from;
+                while (to < ops.size() && ops.get(to).insert() == insert) to++;
+                List<Op> run = ops.subList(from, to);
+                if (insert) writeInserts(run); else writeDeletes(run);
+                from = to;
+            }
+        });
+    }
+
+    private void writeInserts(List<Op> ops) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Op op : ops) {
+            SeatHold h = op.hold();
+            Timestamp expires = new Timestamp(h.expiresAt());
+            for (long seatId : h.seatIds()) rows.add(new Object[]{h.showtimeId(), seatId, h.userId(), expires});
+        }
+        jdbc.batchUpdate(INSERT_SQL, rows);
+
+        // Update counts can't tell a kept live lock from a write (an unchanged upsert row reports 1
+        // and rewritten batches only SUCCESS_NO_INFO), so read back which rows carry our expiry.
+        Set<String> owned = owned(rows);
+        for (Op op : ops) {
+            SeatHold h = op.hold();
+            for (long seatId : h.seatIds()) {
+                if (!owned.contains(h.showtimeId() + ":" + seatId)) {
+                    op.onConflict().accept(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    // "showtime:seat" of the written rows whose expires_at is still the one we wrote
+    private Set<String> owned(List<Object[]> rows) {
+        Set<String> owned = new HashSet<>(rows.size() * 2);
+        for (int from = 0; from < rows.size(); from += CHECK_CHUNK) {
+            List<Object[]> chunk = rows.subList(from, Math.min(rows.size(), from + CHECK_CHUNK));
+            StringBuilder sql = new StringBuilder(
+                    "SELECT showtime_id, seat_id FROM seat_locks WHERE (showtime_id, seat_id, expires_at) IN (");
+            Object[] args = new Object[chunk.size() * 3];
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+                args[i * 3] = chunk.get(i)[0];
+                args[i * 3 + 1] = chunk.get(i)[1];
+                args[i * 3 + 2] = chunk.get(i)[3];
+            }
+            sql.append(')');
+            jdbc.query(sql.toString(), rs -> {
+                owned.add(rs.getLong(1) + ":" + rs.getLong(2));
+            }, args);
+        }
+        return owned;
+    }
+
+    private void writeDeletes(List<Op> ops) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Op op : ops) {
+            SeatHold h = op.hold();
+            Timestamp expires = new Timestamp(h.expiresAt());
+            for (long seatId : h.seatIds()) rows.add(new Object[]{h.showtimeId(), seatId, expires});
+        }
+        jdbc.batchUpdate(DELETE_SQL, rows);
+    }
+}
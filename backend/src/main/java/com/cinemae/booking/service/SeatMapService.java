@@ -0,0 +1,165 @@
+package com.cinemae.booking.service;
+
+import com.cinemae.booking.api.SeatDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Seat availability per showtime, held in memory as {@link ShowtimeSeats} bitmaps. A showtime
+ * is loaded from tickets and seat_locks on first access; after that this map is the source of
+ * truth and MySQL is only written behind it, so seat-map reads never query the database.
+ */
+@Service
+public class SeatMapService {
+
+    private static final String[] STATUS = {"available", "held", "sold"};
+    // keep a finished showtime around a while for late order lookups
+    private static final long KEEP_AFTER_START = Duration.ofHours(6).toMillis();
+
+    private final JdbcTemplate jdbc;
+    private final PricingEngine pricing;
+    private final Map<Integer, AuditoriumLayout> layouts = new ConcurrentHashMap<>();
+    private final Map<Long, ShowtimeSeats> showtimes = new ConcurrentHashMap<>();
+    // loads in flight, so concurrent first requests share one without holding a map lock over SQL
+    private final Map<Long, CompletableFuture<ShowtimeSeats>> loading = new ConcurrentHashMap<>();
+    // ids that had no showtime row, so repeated requests for them don't each query MySQL
+    private final Cache<Long, Boolean> missing = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofSeconds(30))
+            .build();
+    // run on every freshly loaded showtime before it becomes visible (e.g. to restore holds)
+    private final List<Consumer<ShowtimeSeats>> loadHooks = new CopyOnWriteArrayList<>();
+
+    public SeatMapService(JdbcTemplate jdbc, PricingEngine pricing) {
+        this.jdbc = jdbc;
+        this.pricing = pricing;
+    }
+
+    /** Loaded on first use; empty for unknown showtimes. */
+    public Optional<ShowtimeSeats> showtime(long showtimeId) {
+        ShowtimeSeats seats = showtimes.get(showtimeId);
+        if (seats != null) return Optional.of(seats);
+        if (missing.getIfPresent(showtimeId) != null) return Optional.empty();
+
+        // one loader per showtime, concurrent first requests wait for it
+        CompletableFuture<ShowtimeSeats> mine = new CompletableFuture<>();
+        CompletableFuture<ShowtimeSeats> existing = loading.putIfAbsent(showtimeId, mine);
+        if (existing != null) {
+            try {
+                return Optional.ofNullable(existing.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw e;
+            }
+        }
+        try {
+            // a load that finished just before we registered ours
+            seats = showtimes.get(showtimeId);
+            if (seats == null) {
+                seats = load(showtimeId);
+                if (seats != null) showtimes.put(showtimeId, seats);
+                else missing.put(showtimeId, Boolean.TRUE);
+            }
+            mine.complete(seats);
+            return Optional.ofNullable(seats);
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(showtimeId, mine);
+        }
+    }
+
+    /** Already-loaded state only, never touches the database. */
+    public Optional<ShowtimeSeats> loaded(long showtimeId) {
+        return Optional.ofNullable(showtimes.get(showtimeId));
+    }
+
+    public void onLoad(Consumer<ShowtimeSeats> hook) {
+        loadHooks.add(hook);
+    }
+
+    public List<SeatDto> seatMap(ShowtimeSeats seats) {
+        int[] all = new int[seats.layout().size()];
+        for (int i = 0; i < all.length; i++) all[i] = i;
+        return seatMap(seats, all);
+    }
+
+    public List<SeatDto> seatMap(ShowtimeSeats seats, int[] indexes) {
+        // seat maps show the adult price in force right now
+        BigDecimal price = pricing.resolve(seats.showtimeId(), seats.movieId(), System.currentTimeMillis())
+                .map(p -> BigDecimal.valueOf(p.adultCents(), 2)).orElse(BigDecimal.ZERO.setScale(2));
+        List<SeatDto> out = new ArrayList<>(indexes.length);
+        for (int i : indexes) {
+            AuditoriumLayout.Seat seat = seats.layout().seat(i);
+            out.add(new SeatDto(seat.id(), seat.row(), seat.number(), seat.type(), STATUS[seats.status(i)], price));
+        }
+        return out;
+    }
+
+    /** Drops loaded state, e.g. after seats or tickets were edited outside the app. */
+    public void evict(long showtimeId) {
+        showtimes.remove(showtimeId);
+        missing.invalidate(showtimeId);
+    }
+
+    @Scheduled(fixedDelayString = "PT1H")
+    public void evictFinished() {
+        long cutoff = System.currentTimeMillis() - KEEP_AFTER_START;
+        showtimes.values().removeIf(s -> s.startsAt() < cutoff);
+    }
+
+    // --- loading ---
+
+    private record Row(long movieId, int auditoriumId, long startsAt) {}
+
+    private ShowtimeSeats load(long showtimeId) {
+        // getTimestamp reads DATETIME in the JVM zone, as LocalDateTime values elsewhere are converted
+        List<Row> rows = jdbc.query("SELECT movie_id, auditorium_id, starts_at FROM showtimes WHERE id = ?",
+                (rs, rowNum) -> new Row(rs.getLong("movie_id"), rs.getInt("auditorium_id"),
+                        rs.getTimestamp("starts_at").getTime()),
+                showtimeId);
+        if (rows.isEmpty()) return null;
+        long movieId = rows.get(0).movieId();
+        int auditoriumId = rows.get(0).auditoriumId();
+        long startsAt = rows.get(0).startsAt();
+
+        AuditoriumLayout layout = layout(auditoriumId);
+        ShowtimeSeats seats = new ShowtimeSeats(showtimeId, movieId, startsAt, layout);
+        jdbc.query("SELECT seat_id FROM tickets WHERE showtime_id = ?", rs -> {
+            int index = layout.indexOf(rs.getLong("seat_id"));
+            if (index >= 0) seats.loadTaken(index, true);
+        }, showtimeId);
+        for (Consumer<ShowtimeSeats> hook : loadHooks) hook.accept(seats);
+        return seats;
+    }
+
+    private AuditoriumLayout layout(int auditoriumId) {
+        AuditoriumLayout layout = layouts.get(auditoriumId);
+        if (layout != null) return layout;
+        // loaded outside the map lock; a racing load of the same auditorium is harmless
+        AuditoriumLayout loaded = loadLayout(auditoriumId);
+        return Objects.requireNonNullElse(layouts.putIfAbsent(auditoriumId, loaded), loaded);
+    }
+
+    private AuditoriumLayout loadLayout(int auditoriumId) {
+        List<AuditoriumLayout.Seat> seats = jdbc.query(
+                "SELECT id, row_label, seat_number, seat_type FROM seats WHERE auditorium_id = ?",
+                (rs, rowNum) -> new AuditoriumLayout.Seat(rs.getLong("id"), rs.getString("row_label"),
+                        rs.getInt("seat_number"), rs.getString("seat_type")),
+                auditoriumId);
+        return new AuditoriumLayout(auditoriumId, seats);
+    }
+}
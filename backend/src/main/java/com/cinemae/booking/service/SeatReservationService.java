@@ -0,0 +1,193 @@
+package com.cinemae.booking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Seat holds. A reservation is decided entirely in memory: all requested seats are claimed
+ * in one all-or-nothing CAS pass over the showtime's bitmap, and the winner's seat_locks rows
+ * are queued for {@link SeatLockWriter}. Losers get the conflicting seats back without any
+ * database round trip. Every hold sits in a timing wheel until it lapses; expiry frees the
+ * seats and queues the row deletes, so nothing ever polls seat_locks.
+ */
+@Service
+public class SeatReservationService {
+
+    public enum Outcome { HELD, CONFLICT, NOT_FOUND, INVALID }
+
+    /** {@code hold} for HELD, {@code unavailable} seat ids for CONFLICT, {@code message} otherwise. */
+    public record Result(Outcome outcome, SeatHold hold, List<Long> unavailable, String message) {
+
+        static Result invalid(Outcome outcome, String message) {
+            return new Result(outcome, null, List.of(), message);
+        }
+    }
+
+    private static final int PURGE_CHUNK = 1000;
+
+    private final JdbcTemplate jdbc;
+    private final SeatMapService seatMaps;
+    private final SeatLockWriter writer;
+    private final Duration holdTtl;
+    private final int maxSeats;
+
+    private final Map<String, SeatHold> holds = new ConcurrentHashMap<>();
+    private final TimingWheel<SeatHold> expiries = new TimingWheel<>(1000, System.currentTimeMillis());
+
+    public SeatReservationService(JdbcTemplate jdbc, SeatMapService seatMaps, SeatLockWriter writer,
+                                  @Value("${app.seats.hold-ttl:PT10M}") Duration holdTtl,
+                                  @Value("${app.seats.max-per-hold:10}") int maxSeats) {
+        this.jdbc = jdbc;
+        this.seatMaps = seatMaps;
+        this.writer = writer;
+        this.holdTtl = holdTtl;
+        this.maxSeats = maxSeats;
+        seatMaps.onLoad(this::restoreHolds);
+    }
+
+    public Result reserve(long showtimeId, Collection<Long> seatIds, Long userId) {
+        if (seatIds == null || seatIds.isEmpty() || seatIds.size() > maxSeats) {
+            return Result.invalid(Outcome.INVALID, "between 1 and " + maxSeats + " seats required");
+        }
+        Optional<ShowtimeSeats> found = seatMaps.showtime(showtimeId);
+        if (found.isEmpty()) return Result.invalid(Outcome.NOT_FOUND, "showtime not found");
+        ShowtimeSeats seats = found.get();
+        long now = System.currentTimeMillis();
+        if (seats.startsAt() <= now) return Result.invalid(Outcome.INVALID, "showtime already started");
+
+        long[] ids = seatIds.stream().distinct().mapToLong(Long::longValue).toArray();
+        int[] indexes = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            indexes[i] = seats.layout().indexOf(ids[i]);
+            if (indexes[i] < 0) return Result.invalid(Outcome.INVALID, "seat " + ids[i] + " is not in this auditorium");
+        }
+        return claim(seats, indexes, ids, userId, now);
+    }
+
+    // shared with the best-available path, which picks the indexes itself
+    Result claim(ShowtimeSeats seats, int[] indexes, long[] ids, Long userId, long now) {
+        if (!seats.tryTake(indexes)) {
+            List<Long> unavailable = new ArrayList<>();
+            for (int i = 0; i < indexes.length; i++) {
+                if (seats.status(indexes[i]) != ShowtimeSeats.AVAILABLE) unavailable.add(ids[i]);
+            }
+            return new Result(Outcome.CONFLICT, null, unavailable, "seats no longer available");
+        }
+
+        // whole seconds: expires_at is a DATETIME and deletes match on it
+        long expiresAt = (now + holdTtl.toMillis()) / 1000 * 1000;
+        SeatHold hold = new SeatHold(UUID.randomUUID().toString(), seats.showtimeId(), indexes, ids, userId, expiresAt);
+        holds.put(hold.id(), hold);
+        expiries.schedule(hold, expiresAt);
+        writer.insert(hold, this::onPersistConflict);
+        return new Result(Outcome.HELD, hold, List.of(), null);
+    }
+
+    /** Live hold by id; expired or released holds are gone. */
+    public Optional<SeatHold> hold(String holdId) {
+        SeatHold hold = holdId == null ? null : holds.get(holdId);
+        if (hold == null || hold.expiresAt() <= System.currentTimeMillis()) return Optional.empty();
+        return Optional.of(hold);
+    }
+
+    /** Gives the seats back; false if the hold was unknown or already gone. */
+    public boolean release(String holdId) {
+        SeatHold hold = holds.remove(holdId);
+        if (hold == null) return false;
+        seatMaps.loaded(hold.showtimeId()).ifPresent(s -> s.release(hold.seatIndexes()));
+        writer.delete(hold);
+        return true;
+    }
+
+    /** Takes a live hold out of circulation while an order is placed against it; it won't expire meanwhile. */
+    public Optional<SeatHold> take(String holdId) {
+        Optional<SeatHold> hold = hold(holdId);
+        return hold.filter(h -> holds.remove(h.id(), h));
+    }
+
+    /** Puts back a taken hold whose order failed; if it lapsed in the meantime its seats are freed. */
+    public void restore(SeatHold hold) {
+        holds.put(hold.id(), hold);
+        // the wheel may already have passed it while it was out
+        if (hold.expiresAt() <= System.currentTimeMillis()) expire(hold);
+    }
+
+    /** Completes a taken hold once its tickets are committed: the seats become sold and the lock rows go. */
+    public void convert(SeatHold hold) {
+        seatMaps.showtime(hold.showtimeId()).ifPresent(s -> s.markSold(hold.seatIndexes()));
+        writer.delete(hold);
+    }
+
+    public int maxSeatsPerHold() {
+        return maxSeats;
+    }
+
+    public int activeHolds() {
+        return holds.size();
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void expireHolds() {
+        expiries.advanceTo(System.currentTimeMillis(), this::expire);
+    }
+
+    // released or converted holds are already gone from the map and are skipped here
+    private void expire(SeatHold hold) {
+        if (!holds.remove(hold.id(), hold)) return;
+        seatMaps.loaded(hold.showtimeId()).ifPresent(s -> s.release(hold.seatIndexes()));
+        writer.delete(hold);
+    }
+
+    // Rows left by a previous run: lapsed ones are deleted in chunks (index on expires_at),
+    // live ones are picked up per showtime as it loads.
+    @EventListener(ApplicationReadyEvent.class)
+    public void purgeLapsedLocks() {
+        try {
+            int deleted, total = 0;
+            do {
+                deleted = jdbc.update("DELETE FROM seat_locks WHERE expires_at <= NOW() LIMIT " + PURGE_CHUNK);
+                total += deleted;
+            } while (deleted == PURGE_CHUNK);
+            if (total > 0) System.out.println("Purged " + total + " lapsed seat_locks rows");
+        } catch (Exception e) {
+            System.err.println("Could not purge lapsed seat_locks: " + e.getMessage());
+        }
+    }
+
+    // Live seat_locks rows of a showtime being loaded become holds again, one per (user, expiry),
+    // so they expire on schedule like any other.
+    private void restoreHolds(ShowtimeSeats seats) {
+        Map<List<Object>, List<Long>> groups = new LinkedHashMap<>();
+        jdbc.query("SELECT seat_id, user_id, expires_at FROM seat_locks WHERE showtime_id = ? AND expires_at > NOW()", rs -> {
+            long userId = rs.getLong("user_id");
+            List<Object> key = Arrays.asList(rs.wasNull() ? null : userId, rs.getTimestamp("expires_at").getTime());
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(rs.getLong("seat_id"));
+        }, seats.showtimeId());
+
+        groups.forEach((key, seatIds) -> {
+            long[] ids = seatIds.stream().mapToLong(Long::longValue).filter(id -> seats.layout().indexOf(id) >= 0).toArray();
+            int[] indexes = Arrays.stream(ids).mapToInt(id -> seats.layout().indexOf(id)).toArray();
+            for (int index : indexes) seats.loadTaken(index, false);
+            SeatHold hold = new SeatHold(UUID.randomUUID().toString(), seats.showtimeId(), indexes, ids,
+                    (Long) key.get(0), (Long) key.get(1));
+            holds.put(hold.id(), hold);
+            expiries.schedule(hold, hold.expiresAt());
+        });
+    }
+
+    // MySQL already had a live lock on one of these seats, i.e. something wrote seat_locks
+    // behind our back. Drop the hold and reload the showtime from the database.
+    private void onPersistConflict(SeatHold hold) {
+        System.err.println("seat_locks conflict for hold " + hold.id() + " on showtime " + hold.showtimeId() + ", reloading seat map");
+        if (holds.remove(hold.id()) != null) writer.delete(hold);
+        seatMaps.evict(hold.showtimeId());
+    }
+}
@@ -0,0 +1,90 @@
+package com.cinemae.booking.service;
+
+import com.cinemae.booking.api.OccupancyDto;
+import com.cinemae.booking.api.ShowDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Per-movie showtime schedules bucketed by day. A movie's upcoming showtimes are read once
+ * (range scan on idx_showtimes_movie_time); capacity and remaining seats come from
+ * {@link OccupancyCounters} for the whole page at once. A schedule is at most
+ * {@code app.schedules.expire} old, so showtimes written outside the app show up within that.
+ */
+@Service
+public class ShowScheduleService {
+
+    private final JdbcTemplate jdbc;
+    private final OccupancyCounters occupancy;
+    private final Cache<Long, MovieSchedule> schedules;
+
+    public ShowScheduleService(JdbcTemplate jdbc, OccupancyCounters occupancy,
+                               @Value("${app.schedules.expire:PT5M}") Duration expire) {
+        this.jdbc = jdbc;
+        this.occupancy = occupancy;
+        this.schedules = Caffeine.newBuilder()
+                .maximumSize(5000)
+                // by write, not access: a popular movie would otherwise never pick up showtimes
+                // written outside the app
+                .expireAfterWrite(expire)
+                .build();
+    }
+
+    private record Entry(long showtimeId, LocalDateTime startsAt, int auditoriumId, String auditorium) {}
+
+    private record MovieSchedule(NavigableMap<LocalDate, List<Entry>> byDay) {}
+
+    /** Shows on {@code days} consecutive days starting at {@code from}, in start order. */
+    public List<ShowDto> shows(long movieId, LocalDate from, int days) {
+        MovieSchedule schedule = schedules.get(movieId, this::load);
+        List<Entry> entries = new ArrayList<>();
+        for (List<Entry> day : schedule.byDay().subMap(from, true, from.plusDays(days), false).values()) {
+            entries.addAll(day);
+        }
+        Map<Long, OccupancyDto> counts = occupancy.getAll(entries.stream().map(Entry::showtimeId).toList());
+        List<ShowDto> out = new ArrayList<>(entries.size());
+        for (Entry e : entries) {
+            OccupancyDto o = counts.get(e.showtimeId());
+            out.add(new ShowDto(e.showtimeId(), e.startsAt(), e.auditoriumId(), e.auditorium(),
+                    o != null ? o.capacity() : 0, o != null ? o.free() : 0));
+        }
+        return out;
+    }
+
+    /** Days from today on that have at least one show, for a date picker. */
+    public List<LocalDate> dates(long movieId) {
+        return List.copyOf(schedules.get(movieId, this::load).byDay().tailMap(LocalDate.now(), true).keySet());
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.movieId() == null) schedules.invalidateAll(); else schedules.invalidate(event.movieId());
+    }
+
+    // --- loading ---
+
+    private MovieSchedule load(long movieId) {
+        Timestamp from = Timestamp.valueOf(LocalDate.now().atStartOfDay());
+
+        NavigableMap<LocalDate, List<Entry>> byDay = new TreeMap<>();
+        jdbc.query("SELECT s.id, s.starts_at, s.auditorium_id, a.name FROM showtimes s "
+                + "JOIN auditoriums a ON a.id = s.auditorium_id "
+                + "WHERE s.movie_id = ? AND s.starts_at >= ? ORDER BY s.starts_at", rs -> {
+            LocalDateTime startsAt = rs.getTimestamp("starts_at").toLocalDateTime();
+            Entry e = new Entry(rs.getLong("id"), startsAt, rs.getInt("auditorium_id"), rs.getString("name"));
+            byDay.computeIfAbsent(startsAt.toLocalDate(), d -> new ArrayList<>()).add(e);
+        }, movieId, from);
+        byDay.replaceAll((d, list) -> List.copyOf(list));
+        return new MovieSchedule(Collections.unmodifiableNavigableMap(byDay));
+    }
+}
@@ -0,0 +1,203 @@
+package com.cinemae.booking.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Authoritative seat state of one showtime: a "taken" bitmap (held or sold) and a "sold"
+ * bitmap over the auditorium layout's seat indexes. Reads never lock; writers update whole
+ * 64-seat words with CAS. Held and sold totals are kept alongside from the bits each write
+ * actually flipped, so counts never need a scan.
+ */
+public final class ShowtimeSeats {
+
+    public static final int AVAILABLE = 0;
+    public static final int HELD = 1;
+    public static final int SOLD = 2;
+
+    /** Told about every committed change, after the bitmap is updated. */
+    public interface ChangeListener {
+        void changed(ShowtimeSeats seats, int[] indexes, int status, long version);
+    }
+
+    private final long showtimeId;
+    private final long movieId;
+    private final long startsAt;
+    private final AuditoriumLayout layout;
+    // distinguishes this load from an earlier one of the same showtime (versions restart at 0)
+    private final String loadTag = Long.toString(System.nanoTime(), 36);
+
+    private final AtomicLongArray taken;
+    private final AtomicLongArray sold;
+    private final AtomicLong version = new AtomicLong();
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder held = new LongAdder();
+    private final LongAdder soldCount = new LongAdder();
+    private final RowRunIndex rowRuns;
+
+    ShowtimeSeats(long showtimeId, long movieId, long startsAt, AuditoriumLayout layout) {
+        this.showtimeId = showtimeId;
+        this.movieId = movieId;
+        this.startsAt = startsAt;
+        this.layout = layout;
+        int words = (layout.size() + 63) >>> 6;
+        this.taken = new AtomicLongArray(words);
+        this.sold = new AtomicLongArray(words);
+        this.rowRuns = new RowRunIndex(this);
+    }
+
+    public long showtimeId() {
+        return showtimeId;
+    }
+
+    public long movieId() {
+        return movieId;
+    }
+
+    public long startsAt() {
+        return startsAt;
+    }
+
+    public AuditoriumLayout layout() {
+        return layout;
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    public String etag() {
+        return "W/\"s" + loadTag + "-" + Long.toString(version.get(), 36) + "\"";
+    }
+
+    RowRunIndex rowRuns() {
+        return rowRuns;
+    }
+
+    public void listen(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public int heldCount() {
+        return held.intValue();
+    }
+
+    public int soldCount() {
+        return soldCount.intValue();
+    }
+
+    /** Held or sold seats. */
+    public int takenCount() {
+        return heldCount() + soldCount();
+    }
+
+    public int status(int index) {
+        long bit = 1L << index;
+        if ((sold.get(index >>> 6) & bit) != 0) return SOLD;
+        return (taken.get(index >>> 6) & bit) != 0 ? HELD : AVAILABLE;
+    }
+
+    /**
+     * Claims every seat or none. Words are claimed in ascending order; if any seat is already
+     * taken, the words claimed so far are given back and false is returned.
+     */
+    public boolean tryTake(int[] indexes) {
+        long[] words = wordMasks(indexes);
+        int claimed = 0;
+        for (int i = 0; i < words.length; i += 2) {
+            int word = (int) words[i];
+            long mask = words[i + 1];
+            while (true) {
+                long current = taken.get(word);
+                if ((current & mask) != 0) {
+                    for (int j = 0; j < i; j += 2) clear(taken, (int) words[j], words[j + 1]);
+                    // the partial claim was briefly visible; don't let cached row runs keep it
+                    if (i > 0) rowRuns.touch(indexes);
+                    return false;
+                }
+                if (taken.compareAndSet(word, current, current | mask)) break;
+            }
+            claimed += Long.bitCount(mask);
+        }
+        held.add(claimed);
+        changed(indexes, HELD);
+        return true;
+    }
+
+    /** Frees held seats; sold seats are left alone. */
+    public void release(int[] indexes) {
+        long[] words = wordMasks(indexes);
+        for (int i = 0; i < words.length; i += 2) {
+            int word = (int) words[i];
+            long mask = words[i + 1] & ~sold.get(word);
+            held.add(-Long.bitCount(clear(taken, word, mask) & mask));
+        }
+        changed(indexes, AVAILABLE);
+    }
+
+    /** Turns taken seats into sold ones (the caller owns the hold). */
+    public void markSold(int[] indexes) {
+        long[] words = wordMasks(indexes);
+        for (int i = 0; i < words.length; i += 2) {
+            long mask = words[i + 1];
+            long wasTaken = set(taken, (int) words[i], mask);
+            long newlySold = mask & ~set(sold, (int) words[i], mask);
+            held.add(-Long.bitCount(newlySold & wasTaken));
+            soldCount.add(Long.bitCount(newlySold));
+        }
+        changed(indexes, SOLD);
+    }
+
+    // used while loading, before the state is published
+    void loadTaken(int index, boolean isSold) {
+        if (status(index) != AVAILABLE) return;
+        set(taken, index >>> 6, 1L << index);
+        if (isSold) set(sold, index >>> 6, 1L << index);
+        (isSold ? soldCount : held).increment();
+    }
+
+    private void changed(int[] indexes, int status) {
+        rowRuns.touch(indexes);
+        long v = version.incrementAndGet();
+        for (ChangeListener l : listeners) l.changed(this, indexes, status, v);
+    }
+
+    // {word, mask, word, mask, ...} in ascending word order
+    private static long[] wordMasks(int[] indexes) {
+        int[] sorted = indexes.clone();
+        Arrays.sort(sorted);
+        long[] out = new long[sorted.length * 2];
+        int n = 0;
+        for (int index : sorted) {
+            int word = index >>> 6;
+            if (n > 0 && out[n - 2] == word) {
+                out[n - 1] |= 1L << index;
+            } else {
+                out[n++] = word;
+                out[n++] = 1L << index;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // both return the word as it was before the update
+    private static long set(AtomicLongArray bits, int word, long mask) {
+        long current;
+        do {
+            current = bits.get(word);
+        } while (!bits.compareAndSet(word, current, current | mask));
+        return current;
+    }
+
+    private static long clear(AtomicLongArray bits, int word, long mask) {
+        long current;
+        do {
+            current = bits.get(word);
+        } while (!bits.compareAndSet(word, current, current & ~mask));
+        return current;
+    }
+}
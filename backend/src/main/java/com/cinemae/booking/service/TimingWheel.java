@@ -0,0 +1,91 @@
+package com.cinemae.booking.service;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel (three levels of 64 slots). Scheduling is an O(1) lock-free
+ * enqueue from any thread; a single ticker thread calls {@link #advanceTo} and expires each
+ * entry in O(1), cascading far-out entries down a level as their slot comes up. There is no
+ * cancel: callers ignore expiries for items that were already settled.
+ */
+final class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 3;
+    private static final long SPAN = 1L << (BITS * LEVELS);
+
+    private record Entry<T>(T item, long deadline) {}
+
+    private final long tickMillis;
+    // written by schedulers, drained by the ticker
+    private final Queue<Entry<T>> incoming = new ConcurrentLinkedQueue<>();
+    // ticker-only state
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayDeque<Entry<T>>[][] slots = new ArrayDeque[LEVELS][SLOTS];
+    private long tick;
+    private final AtomicInteger size = new AtomicInteger();
+
+    TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.tick = nowMillis / tickMillis;
+    }
+
+    void schedule(T item, long deadlineMillis) {
+        // round up so nothing fires early
+        incoming.add(new Entry<>(item, (deadlineMillis + tickMillis - 1) / tickMillis));
+        size.incrementAndGet();
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /** Ticker thread only: fires everything due at or before {@code nowMillis}. */
+    void advanceTo(long nowMillis, Consumer<T> onExpire) {
+        for (Entry<T> e; (e = incoming.poll()) != null; ) place(e, onExpire);
+        long target = nowMillis / tickMillis;
+        while (tick < target) {
+            tick++;
+            if ((tick & MASK) == 0) {
+                if (((tick >>> BITS) & MASK) == 0) cascade(2, (int) ((tick >>> (2 * BITS)) & MASK), onExpire);
+                cascade(1, (int) ((tick >>> BITS) & MASK), onExpire);
+            }
+            ArrayDeque<Entry<T>> due = slots[0][(int) (tick & MASK)];
+            if (due != null) {
+                for (Entry<T> e; (e = due.poll()) != null; ) fire(e, onExpire);
+            }
+        }
+    }
+
+    private void cascade(int level, int slot, Consumer<T> onExpire) {
+        ArrayDeque<Entry<T>> bucket = slots[level][slot];
+        if (bucket == null) return;
+        for (Entry<T> e; (e = bucket.poll()) != null; ) place(e, onExpire);
+    }
+
+    private void place(Entry<T> e, Consumer<T> onExpire) {
+        long delta = e.deadline() - tick;
+        if (delta <= 0) {
+            fire(e, onExpire);
+            return;
+        }
+        // beyond the top level: park in the farthest slot, re-placed when it cascades
+        long at = delta < SPAN ? e.deadline() : tick + SPAN - 1;
+        int level = delta < SLOTS ? 0 : delta < SLOTS * SLOTS ? 1 : 2;
+        int slot = (int) ((at >>> (BITS * level)) & MASK);
+        ArrayDeque<Entry<T>> bucket = slots[level][slot];
+        if (bucket == null) bucket = slots[level][slot] = new ArrayDeque<>();
+        bucket.add(e);
+    }
+
+    private void fire(Entry<T> e, Consumer<T> onExpire) {
+        size.decrementAndGet();
+        onExpire.accept(e.item());
+    }
+}
@@ -0,0 +1,38 @@
+package com.cinemae.booking.bench;
+
+import com.cinemae.booking.service.BookingNumberGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking number issue rate, raw ids and formatted numbers, on one thread and under
+ * contention (all threads share one generator, as they do in the app):
+ * <pre>./mvnw -Pbench test-compile exec:exec -Dbench="BookingNumber -prof gc"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingNumberBenchmark {
+
+    private final BookingNumberGenerator generator = new BookingNumberGenerator(1);
+
+    @Benchmark
+    public long nextId() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public String next() {
+        return generator.next();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String nextContended() {
+        return generator.next();
+    }
+}
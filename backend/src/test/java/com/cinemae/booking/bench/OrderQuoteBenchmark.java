@@ -0,0 +1,56 @@
+package com.cinemae.booking.bench;
+
+import com.cinemae.booking.service.OrderQuoteCalculator;
+import com.cinemae.booking.service.PricingEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout totals with the reused per-thread calculator. gc.alloc.rate.norm should stay at
+ * (about) 0 B/op for every variant:
+ * <pre>./mvnw -Pbench test-compile exec:exec -Dbench="OrderQuote -prof gc"</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderQuoteBenchmark {
+
+    private static final PricingEngine.AgeCategory[] AGES = PricingEngine.AgeCategory.values();
+
+    private final OrderQuoteCalculator calc = new OrderQuoteCalculator();
+    private final PricingEngine.Price price = new PricingEngine.Price(7, 899, 1399, 1099, 150);
+    // one checkout's seats, as priceSeats adds them
+    private final PricingEngine.AgeCategory[] seats = {
+            PricingEngine.AgeCategory.ADULT, PricingEngine.AgeCategory.ADULT,
+            PricingEngine.AgeCategory.CHILD, PricingEngine.AgeCategory.SENIOR
+    };
+
+    @Benchmark
+    public long noPromo() {
+        return quote(0, 0, 0);
+    }
+
+    @Benchmark
+    public long percentOffWithTax() {
+        return quote(1250, 0, 825);
+    }
+
+    @Benchmark
+    public long flatOffWithTax() {
+        return quote(0, 500, 825);
+    }
+
+    // sums the line totals too, as building the response would
+    private long quote(long percentOffBasisPoints, long flatOffCents, long taxBasisPoints) {
+        calc.reset();
+        for (PricingEngine.AgeCategory age : seats) calc.add(age, 1);
+        calc.price(price, percentOffBasisPoints, flatOffCents, taxBasisPoints);
+        long lines = 0;
+        for (PricingEngine.AgeCategory age : AGES) lines += calc.lineCents(age);
+        return calc.totalCents() + lines;
+    }
+}
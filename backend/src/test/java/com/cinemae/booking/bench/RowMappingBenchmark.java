@@ -0,0 +1,77 @@
+package com.cinemae.booking.bench;
+
+import com.cinemae.booking.api.MovieDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Map-per-row (queryForList) vs record mapping for a catalog page, including JSON
+ * serialization. Run with the gc profiler to compare allocation rates:
+ * <pre>./mvnw -Pbench test-compile exec:exec -Dbench="RowMapping -prof gc"</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    @Param({"12", "200"})
+    int rows;
+
+    private CachedRowSet resultSet;
+    private final ObjectMapper json = new ObjectMapper().findAndRegisterModules();
+    private final RowMapper<Map<String, Object>> columnMap = new ColumnMapRowMapper();
+
+    @Setup
+    public void setUp() throws SQLException {
+        String[] labels = {"id", "title", "mpaa_rating", "synopsis", "trailer_video_url", "trailer_image_url"};
+        RowSetMetaDataImpl md = new RowSetMetaDataImpl();
+        md.setColumnCount(labels.length);
+        for (int i = 0; i < labels.length; i++) {
+            md.setColumnName(i + 1, labels[i]);
+            md.setColumnLabel(i + 1, labels[i]);
+            md.setColumnType(i + 1, i == 0 ? Types.BIGINT : Types.VARCHAR);
+        }
+        resultSet = RowSetProvider.newFactory().createCachedRowSet();
+        resultSet.setMetaData(md);
+        for (int r = 1; r <= rows; r++) {
+            resultSet.moveToInsertRow();
+            resultSet.updateLong(1, r);
+            resultSet.updateString(2, "Movie title " + r);
+            resultSet.updateString(3, "PG-13");
+            resultSet.updateString(4, "A thief who steals corporate secrets through dream-sharing gets one last job.");
+            resultSet.updateString(5, "https://example.com/trailers/" + r);
+            resultSet.updateString(6, "https://image.tmdb.org/t/p/w500/poster" + r + ".jpg");
+            resultSet.insertRow();
+        }
+        resultSet.moveToCurrentRow();
+    }
+
+    @Benchmark
+    public byte[] columnMapRows() throws Exception {
+        resultSet.beforeFirst();
+        List<Map<String, Object>> page = new RowMapperResultSetExtractor<>(columnMap, rows).extractData(resultSet);
+        return json.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] recordRows() throws Exception {
+        resultSet.beforeFirst();
+        List<MovieDto> page = new RowMapperResultSetExtractor<>(MovieDto.ROW_MAPPER, rows).extractData(resultSet);
+        return json.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,44 @@
+package com.cinemae.booking.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaControllerTest {
+
+    private static final long[] IGNORE = new long[0];
+
+    @Test
+    void parsesSingleRanges() {
+        assertArrayEquals(new long[]{0, 99}, MediaController.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[]{500, 999}, MediaController.parseRange("bytes=500-", 1000));
+        assertArrayEquals(new long[]{10, 20}, MediaController.parseRange("bytes= 10 - 20 ", 1000));
+        // an end past the file is clamped
+        assertArrayEquals(new long[]{900, 999}, MediaController.parseRange("bytes=900-5000", 1000));
+    }
+
+    @Test
+    void parsesSuffixRanges() {
+        assertArrayEquals(new long[]{900, 999}, MediaController.parseRange("bytes=-100", 1000));
+        assertArrayEquals(new long[]{0, 999}, MediaController.parseRange("bytes=-5000", 1000));
+        assertNull(MediaController.parseRange("bytes=-0", 1000));
+        assertNull(MediaController.parseRange("bytes=-10", 0));
+    }
+
+    @Test
+    void unsatisfiableStartIsNull() {
+        assertNull(MediaController.parseRange("bytes=1000-", 1000));
+        assertNull(MediaController.parseRange("bytes=1000-2000", 1000));
+        assertNull(MediaController.parseRange("bytes=0-", 0));
+    }
+
+    @Test
+    void ignoresWhatItDoesNotServe() {
+        assertArrayEquals(IGNORE, MediaController.parseRange("items=0-10", 1000));
+        assertArrayEquals(IGNORE, MediaController.parseRange("bytes=0-10,20-30", 1000));
+        assertArrayEquals(IGNORE, MediaController.parseRange("bytes=10", 1000));
+        assertArrayEquals(IGNORE, MediaController.parseRange("bytes=abc-def", 1000));
+        assertArrayEquals(IGNORE, MediaController.parseRange("bytes=20-10", 1000));
+        assertArrayEquals(IGNORE, MediaController.parseRange("bytes=-", 1000));
+    }
+}
@@ -0,0 +1,102 @@
+package com.cinemae.booking.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingNumberGeneratorTest {
+
+    private static final String DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    private static long millis(long id) {
+        return id >>> (BookingNumberGenerator.NODE_BITS + 12);
+    }
+
+    private static long sequence(long id) {
+        return id & 4095;
+    }
+
+    @Test
+    void formattedNumbersAreWellFormed() {
+        for (long id : new long[]{0, 1, 31, 32, 123456789L, Long.MAX_VALUE >>> 1}) {
+            String number = BookingNumberGenerator.format(id);
+            assertEquals(BookingNumberGenerator.LENGTH, number.length());
+            assertTrue(BookingNumberGenerator.isWellFormed(number), number);
+            assertTrue(BookingNumberGenerator.isWellFormed(number.toLowerCase()), number);
+        }
+    }
+
+    @Test
+    void checkDigitCatchesEverySingleCharacterTypo() {
+        String number = new BookingNumberGenerator(5).next();
+        for (int i = 0; i < number.length(); i++) {
+            for (char c : DIGITS.toCharArray()) {
+                if (c == number.charAt(i)) continue;
+                String typo = number.substring(0, i) + c + number.substring(i + 1);
+                assertFalse(BookingNumberGenerator.isWellFormed(typo), typo);
+            }
+        }
+    }
+
+    @Test
+    void rejectsWrongLengthAndAlphabet() {
+        String number = BookingNumberGenerator.format(42);
+        assertFalse(BookingNumberGenerator.isWellFormed(null));
+        assertFalse(BookingNumberGenerator.isWellFormed(number.substring(1)));
+        assertFalse(BookingNumberGenerator.isWellFormed(number + "0"));
+        assertFalse(BookingNumberGenerator.isWellFormed("I" + number.substring(1)));
+        assertFalse(BookingNumberGenerator.isWellFormed("é" + number.substring(1)));
+    }
+
+    @Test
+    void sequenceOverflowCarriesIntoTheNextMillisecond() {
+        long now = BookingNumberGenerator.EPOCH + 1000;
+        BookingNumberGenerator g = new BookingNumberGenerator(3, 0, () -> now);
+
+        long previous = -1;
+        for (int i = 0; i < 4096; i++) {
+            long id = g.nextId();
+            assertEquals(1000, millis(id));
+            assertEquals(i, sequence(id));
+            assertTrue(id > previous);
+            previous = id;
+        }
+        long carried = g.nextId();
+        assertEquals(1001, millis(carried));
+        assertEquals(0, sequence(carried));
+        assertEquals(now + 1, g.lastMillis());
+        assertEquals(3, (carried >>> 12) & BookingNumberGenerator.MAX_NODE);
+    }
+
+    @Test
+    void clockSteppingBackStaysMonotonic() {
+        AtomicLong clock = new AtomicLong(BookingNumberGenerator.EPOCH + 2000);
+        BookingNumberGenerator g = new BookingNumberGenerator(1, 0, clock::get);
+
+        long before = g.nextId();
+        clock.set(BookingNumberGenerator.EPOCH + 1500);
+        long after = g.nextId();
+        assertTrue(after > before);
+        assertEquals(2000, millis(after));
+        assertTrue(g.next().compareTo(BookingNumberGenerator.format(after)) > 0);
+
+        // once the clock catches up again it is used as is
+        clock.set(BookingNumberGenerator.EPOCH + 2500);
+        assertEquals(2500, millis(g.nextId()));
+    }
+
+    @Test
+    void startsAfterTheLastMillisecondOfThePreviousOwner() {
+        long notBefore = BookingNumberGenerator.EPOCH + 5000;
+        BookingNumberGenerator g = new BookingNumberGenerator(2, notBefore, () -> BookingNumberGenerator.EPOCH + 1000);
+        assertEquals(5001, millis(g.nextId()));
+    }
+
+    @Test
+    void rejectsNodeOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new BookingNumberGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new BookingNumberGenerator(BookingNumberGenerator.MAX_NODE + 1));
+    }
+}
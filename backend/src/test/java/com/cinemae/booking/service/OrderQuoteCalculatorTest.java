@@ -0,0 +1,74 @@
+package com.cinemae.booking.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderQuoteCalculatorTest {
+
+    private static final PricingEngine.Price PRICE = new PricingEngine.Price(7, 899, 1399, 1099, 150);
+
+    @Test
+    void percentOfRoundsHalfUp() {
+        assertEquals(1, OrderQuoteCalculator.percentOf(1, 5000));   // 0.5
+        assertEquals(0, OrderQuoteCalculator.percentOf(1, 4999));   // 0.4999
+        assertEquals(2, OrderQuoteCalculator.percentOf(3, 5000));   // 1.5
+        assertEquals(396, OrderQuoteCalculator.percentOf(4796, 825)); // 395.67
+        assertEquals(0, OrderQuoteCalculator.percentOf(4796, 0));
+    }
+
+    @Test
+    void pricesAnOrder() {
+        OrderQuoteCalculator calc = new OrderQuoteCalculator()
+                .add(PricingEngine.AgeCategory.ADULT, 2)
+                .add(PricingEngine.AgeCategory.CHILD, 1)
+                .add(PricingEngine.AgeCategory.SENIOR, 1)
+                .price(PRICE, 1250, 0, 825);
+
+        assertEquals(4, calc.tickets());
+        assertEquals(7, calc.ruleId());
+        assertEquals(2798, calc.lineCents(PricingEngine.AgeCategory.ADULT));
+        assertEquals(4796, calc.subtotalCents());
+        assertEquals(600, calc.discountCents()); // 599.5
+        assertEquals(600, calc.feesCents());
+        assertEquals(396, calc.taxCents());
+        assertEquals(5192, calc.totalCents());
+    }
+
+    @Test
+    void discountNeverExceedsSubtotal() {
+        assertEquals(1000, OrderQuoteCalculator.discountCents(1000, 0, 1500));
+        assertEquals(1000, OrderQuoteCalculator.discountCents(1000, 5000, 800));
+        assertEquals(1000, OrderQuoteCalculator.discountCents(1000, 20000, 0));
+        // negative promo values count as none
+        assertEquals(0, OrderQuoteCalculator.discountCents(1000, -100, -100));
+
+        OrderQuoteCalculator calc = new OrderQuoteCalculator()
+                .add(PricingEngine.AgeCategory.CHILD, 1)
+                .price(PRICE, 0, 5000, 0);
+        assertEquals(899, calc.discountCents());
+        // the booking fee is still charged on a free ticket
+        assertEquals(150, calc.totalCents());
+    }
+
+    @Test
+    void overflowThrows() {
+        assertThrows(ArithmeticException.class, () -> OrderQuoteCalculator.percentOf(Long.MAX_VALUE, 2));
+
+        PricingEngine.Price huge = new PricingEngine.Price(1, 0, Long.MAX_VALUE / 2, 0, 0);
+        OrderQuoteCalculator calc = new OrderQuoteCalculator().add(PricingEngine.AgeCategory.ADULT, 3);
+        assertThrows(ArithmeticException.class, () -> calc.price(huge, 0, 0, 0));
+    }
+
+    @Test
+    void resetClearsThePreviousOrder() {
+        OrderQuoteCalculator calc = new OrderQuoteCalculator()
+                .add(PricingEngine.AgeCategory.ADULT, 2)
+                .price(PRICE, 0, 0, 825);
+        calc.reset().add(PricingEngine.AgeCategory.SENIOR, 1).price(PRICE, 0, 0, 0);
+
+        assertEquals(0, calc.quantity(PricingEngine.AgeCategory.ADULT));
+        assertEquals(1099, calc.subtotalCents());
+        assertEquals(1249, calc.totalCents());
+    }
+}
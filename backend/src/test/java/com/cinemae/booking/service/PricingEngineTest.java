@@ -0,0 +1,98 @@
+package com.cinemae.booking.service;
+
+import com.cinemae.booking.api.PriceRuleDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingEngineTest {
+
+    private static final LocalDateTime JAN = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private final List<PriceRuleDto> rules = new ArrayList<>();
+    private final PricingEngine engine = new PricingEngine(new JdbcTemplate() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper) {
+            return (List<T>) List.copyOf(rules);
+        }
+    }, 0);
+
+    private void rule(long id, String scope, Long movieId, Long showtimeId, long adultCents,
+                      LocalDateTime from, LocalDateTime to) {
+        rules.add(new PriceRuleDto(id, scope, movieId, showtimeId, 500, adultCents, 600, 100, true, from, to));
+    }
+
+    private static long at(LocalDateTime t) {
+        return t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private Long adult(long showtimeId, long movieId, LocalDateTime t) {
+        return engine.resolve(showtimeId, movieId, at(t)).map(PricingEngine.Price::adultCents).orElse(null);
+    }
+
+    @Test
+    void latestEffectiveFromWins() {
+        rule(1, "GLOBAL", null, null, 1000, JAN, null);
+        rule(2, "GLOBAL", null, null, 1200, JAN.plusDays(10), JAN.plusDays(20));
+        rule(3, "GLOBAL", null, null, 1500, JAN.plusDays(15), null);
+        engine.recompile();
+
+        assertNull(adult(1, 1, JAN.minusSeconds(1)));
+        assertEquals(1000, adult(1, 1, JAN));
+        assertEquals(1000, adult(1, 1, JAN.plusDays(10).minusSeconds(1)));
+        assertEquals(1200, adult(1, 1, JAN.plusDays(10)));
+        assertEquals(1500, adult(1, 1, JAN.plusDays(15)));
+        // rule 3 outlives rule 2; rule 1 is still the fallback under both
+        assertEquals(1500, adult(1, 1, JAN.plusDays(25)));
+    }
+
+    @Test
+    void endedRuleFallsBackToTheOneBelow() {
+        rule(1, "GLOBAL", null, null, 1000, JAN, null);
+        rule(2, "GLOBAL", null, null, 800, JAN.plusDays(1), JAN.plusDays(2));
+        engine.recompile();
+
+        assertEquals(800, adult(1, 1, JAN.plusDays(1)));
+        // effective_to is exclusive
+        assertEquals(1000, adult(1, 1, JAN.plusDays(2)));
+    }
+
+    @Test
+    void newerRuleWinsATie() {
+        rule(7, "GLOBAL", null, null, 1000, JAN, null);
+        rule(9, "GLOBAL", null, null, 1100, JAN, null);
+        engine.recompile();
+        assertEquals(1100, adult(1, 1, JAN.plusDays(1)));
+        assertEquals(9, engine.resolve(1, 1, at(JAN.plusDays(1))).orElseThrow().ruleId());
+    }
+
+    @Test
+    void mostSpecificScopeWins() {
+        rule(1, "GLOBAL", null, null, 1000, JAN, null);
+        rule(2, "MOVIE", 5L, null, 1300, JAN, null);
+        rule(3, "SHOWTIME", null, 50L, 1600, JAN.plusDays(1), JAN.plusDays(2));
+        engine.recompile();
+
+        LocalDateTime day = JAN.plusDays(1).plusHours(12);
+        assertEquals(1600, adult(50, 5, day));
+        assertEquals(1300, adult(51, 5, day));
+        assertEquals(1000, adult(52, 6, day));
+        // outside its window the showtime rule gives way to the movie rule
+        assertEquals(1300, adult(50, 5, JAN.plusDays(3)));
+        assertEquals(3, engine.ruleCount());
+    }
+
+    @Test
+    void noRuleNoPrice() {
+        engine.recompile();
+        assertTrue(engine.resolve(1, 1, at(JAN)).isEmpty());
+    }
+}
@@ -0,0 +1,104 @@
+package com.cinemae.booking.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromoCodeFilterTest {
+
+    // promotion_codes.code, as rebuild() reads it
+    private final List<String> table = new CopyOnWriteArrayList<>();
+    private final JdbcTemplate jdbc = new JdbcTemplate() {
+        @Override
+        public void query(String sql, RowCallbackHandler rch) {
+            String[] row = new String[1];
+            ResultSet rs = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> method.getName().equals("getString") ? row[0] : null);
+            try {
+                for (String code : table) {
+                    row[0] = code;
+                    rch.processRow(rs);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private static List<String> codes(String prefix, int n) {
+        List<String> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(prefix + Integer.toString(i * 7919, 36).toUpperCase(Locale.ROOT));
+        return out;
+    }
+
+    @Test
+    void everythingIsAMaybeUntilBuilt() {
+        PromoCodeFilter filter = new PromoCodeFilter(jdbc);
+        assertTrue(filter.mightContain("ANYTHING"));
+    }
+
+    @Test
+    void neverSaysNoToATableCode() {
+        table.addAll(codes("SPRING", 5000));
+        PromoCodeFilter filter = new PromoCodeFilter(jdbc);
+        filter.rebuild();
+
+        for (String code : table) {
+            assertTrue(filter.mightContain(code), code);
+            assertTrue(filter.mightContain("  " + code.toLowerCase(Locale.ROOT) + " "), code);
+        }
+        int falsePositives = 0;
+        for (String guess : codes("GUESS", 10_000)) if (filter.mightContain(guess)) falsePositives++;
+        assertTrue(falsePositives < 300, falsePositives + " false positives in 10000");
+    }
+
+    @Test
+    void keepsAddedCodesThroughGrowthRebuilds() {
+        PromoCodeFilter filter = new PromoCodeFilter(jdbc);
+        filter.rebuild();
+        // ten times the initial capacity, inserted and then added one by one
+        List<String> added = codes("BULK", 10_240);
+        for (String code : added) {
+            table.add(code);
+            filter.add(code);
+        }
+        for (String code : added) assertTrue(filter.mightContain(code), code);
+    }
+
+    @Test
+    void concurrentAddsSurviveARebuild() throws Exception {
+        table.addAll(codes("OLD", 1000));
+        PromoCodeFilter filter = new PromoCodeFilter(jdbc);
+        filter.rebuild();
+
+        List<String> added = codes("NEW", 4000);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                List<String> mine = added.subList(t * 1000, (t + 1) * 1000);
+                done.add(pool.submit(() -> {
+                    for (String code : mine) {
+                        table.add(code);
+                        filter.add(code);
+                    }
+                }));
+            }
+            done.add(pool.submit(() -> {
+                for (int i = 0; i < 20; i++) filter.rebuild();
+            }));
+            for (Future<?> f : done) f.get();
+        } finally {
+            pool.shutdown();
+        }
+        for (String code : added) assertTrue(filter.mightContain(code), code);
+        for (String code : codes("OLD", 1000)) assertTrue(filter.mightContain(code), code);
+    }
+}
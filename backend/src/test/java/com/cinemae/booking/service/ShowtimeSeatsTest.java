@@ -0,0 +1,101 @@
+package com.cinemae.booking.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShowtimeSeatsTest {
+
+    // 4 rows of 50: indexes span four 64-bit words
+    private static ShowtimeSeats seats() {
+        List<AuditoriumLayout.Seat> list = new ArrayList<>();
+        long id = 1;
+        for (String row : List.of("A", "B", "C", "D")) {
+            for (int n = 1; n <= 50; n++) list.add(new AuditoriumLayout.Seat(id++, row, n, "STANDARD"));
+        }
+        return new ShowtimeSeats(1, 1, 0, new AuditoriumLayout(1, list));
+    }
+
+    @Test
+    void claimsEverySeatOrNone() {
+        ShowtimeSeats s = seats();
+        assertTrue(s.tryTake(new int[]{130}));
+        long version = s.version();
+
+        // words 0 and 1 are claimed before word 2 turns out to be taken
+        assertFalse(s.tryTake(new int[]{5, 70, 130, 190}));
+        for (int i : new int[]{5, 70, 190}) assertEquals(ShowtimeSeats.AVAILABLE, s.status(i), "seat " + i);
+        assertEquals(ShowtimeSeats.HELD, s.status(130));
+        assertEquals(1, s.heldCount());
+        assertEquals(version, s.version());
+
+        assertTrue(s.tryTake(new int[]{5, 70, 190}));
+        assertEquals(4, s.heldCount());
+    }
+
+    @Test
+    void releaseLeavesSoldSeatsAlone() {
+        ShowtimeSeats s = seats();
+        List<Integer> notified = new ArrayList<>();
+        s.listen((seats, indexes, status, version) -> notified.add(status));
+
+        assertTrue(s.tryTake(new int[]{1, 2, 3}));
+        s.markSold(new int[]{1, 2});
+        s.release(new int[]{1, 2, 3});
+
+        assertEquals(ShowtimeSeats.SOLD, s.status(1));
+        assertEquals(ShowtimeSeats.SOLD, s.status(2));
+        assertEquals(ShowtimeSeats.AVAILABLE, s.status(3));
+        assertEquals(0, s.heldCount());
+        assertEquals(2, s.soldCount());
+        assertEquals(List.of(ShowtimeSeats.HELD, ShowtimeSeats.SOLD, ShowtimeSeats.AVAILABLE), notified);
+        assertFalse(s.tryTake(new int[]{2, 3}));
+    }
+
+    @Test
+    void concurrentClaimsNeverShareASeat() throws Exception {
+        ShowtimeSeats s = seats();
+        int size = s.layout().size();
+        int[] owner = new int[size];
+        AtomicInteger claimed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t + 1;
+                done.add(pool.submit(() -> {
+                    Random random = new Random(thread);
+                    for (int k = 0; k < 2000; k++) {
+                        // seats in different words, so a claim can fail halfway
+                        int[] want = {random.nextInt(size), random.nextInt(size), random.nextInt(size)};
+                        if (want[0] == want[1] || want[1] == want[2] || want[0] == want[2]) continue;
+                        if (!s.tryTake(want)) continue;
+                        for (int i : want) {
+                            synchronized (owner) {
+                                assertEquals(0, owner[i], "seat " + i + " claimed twice");
+                                owner[i] = thread;
+                            }
+                        }
+                        claimed.addAndGet(want.length);
+                    }
+                }));
+            }
+            for (Future<?> f : done) f.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        int held = 0;
+        for (int i = 0; i < size; i++) {
+            boolean taken = s.status(i) == ShowtimeSeats.HELD;
+            assertEquals(owner[i] != 0, taken, "seat " + i);
+            if (taken) held++;
+        }
+        assertEquals(claimed.get(), held);
+        assertEquals(held, s.heldCount());
+    }
+}
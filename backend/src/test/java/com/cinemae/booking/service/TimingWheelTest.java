@@ -0,0 +1,95 @@
+package com.cinemae.booking.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final long TICK = 10;
+
+    // advances one tick at a time and records when each item fired
+    private static Map<String, Long> run(TimingWheel<String> wheel, long until, List<String> order) {
+        Map<String, Long> firedAt = new HashMap<>();
+        for (long now = 0; now <= until; now += TICK) {
+            long at = now;
+            wheel.advanceTo(now, item -> {
+                assertNull(firedAt.put(item, at), item + " fired twice");
+                order.add(item);
+            });
+        }
+        return firedAt;
+    }
+
+    @Test
+    void firesOnTheFirstTickAtOrAfterTheDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        wheel.schedule("a", 10);
+        wheel.schedule("b", 15); // rounds up, never early
+        wheel.schedule("c", 630);
+
+        Map<String, Long> firedAt = run(wheel, 1000, new ArrayList<>());
+        assertEquals(10, firedAt.get("a"));
+        assertEquals(20, firedAt.get("b"));
+        assertEquals(630, firedAt.get("c"));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesFromEveryLevel() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        // level 0 (< 64 ticks), level 1 (< 64^2), level 2 (< 64^3), beyond the wheel's span
+        long[] deadlines = {40 * TICK, 64 * TICK, 100 * TICK, 4095 * TICK, 4096 * TICK, 5000 * TICK,
+                262_143 * TICK, 300_000 * TICK};
+        for (long d : deadlines) wheel.schedule("t" + d, d);
+        assertEquals(deadlines.length, wheel.size());
+
+        Map<String, Long> firedAt = run(wheel, 300_000 * TICK, new ArrayList<>());
+        for (long d : deadlines) assertEquals(d, firedAt.get("t" + d), "deadline " + d);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void expiresInDeadlineOrder() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        List<Long> deadlines = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) deadlines.add((1 + random.nextInt(10_000)) * TICK + i % TICK);
+        for (int i = 0; i < deadlines.size(); i++) wheel.schedule(i + ":" + deadlines.get(i), deadlines.get(i));
+
+        List<String> order = new ArrayList<>();
+        Map<String, Long> firedAt = run(wheel, 10_010 * TICK, order);
+        long previous = -1;
+        for (String item : order) {
+            long deadline = Long.parseLong(item.substring(item.indexOf(':') + 1));
+            // ties within a tick may come in any order
+            long dueTick = (deadline + TICK - 1) / TICK;
+            assertTrue(dueTick >= previous, item);
+            previous = dueTick;
+            assertEquals(dueTick * TICK, firedAt.get(item));
+        }
+        assertEquals(deadlines.size(), order.size());
+    }
+
+    @Test
+    void pastDeadlinesFireOnTheNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 1000);
+        wheel.schedule("late", 500);
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(1000, fired::add);
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void startsFromTheGivenTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 1_000_000);
+        wheel.schedule("x", 1_000_000 + 70 * TICK);
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(1_000_000 + 69 * TICK, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advanceTo(1_000_000 + 70 * TICK, fired::add);
+        assertEquals(List.of("x"), fired);
+    }
+}
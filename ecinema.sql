@@ -193,6 +193,8 @@ CREATE TABLE media_assets (
 
 -- Fulltext for search
 CREATE FULLTEXT INDEX ft_movies_title_synopsis ON movies (title, synopsis);
+-- Anchored title prefix lookups (short search terms below the fulltext token size)
+CREATE INDEX idx_movies_title ON movies (title);
 
 -- ------------------------------------------------------------
 -- Auditoriums, Seats, Showtimes, Pricing
@@ -248,6 +250,9 @@ CREATE TABLE price_rules (
 -- ------------------------------------------------------------
 -- Locks, Bookings, Tickets, Payments, Promotions
 -- ------------------------------------------------------------
+DROP TABLE IF EXISTS showtime_occupancy;
+DROP TABLE IF EXISTS promo_code_leases;
+DROP TABLE IF EXISTS id_node_leases;
 DROP TABLE IF EXISTS seat_locks;
 DROP TABLE IF EXISTS tickets;
 DROP TABLE IF EXISTS payments;
@@ -281,6 +286,8 @@ CREATE TABLE bookings (
   created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 ) ENGINE=InnoDB;
+-- Startup reconciliation of promotion_codes.redeemed_count groups bookings by code
+CREATE INDEX idx_bookings_promo_code ON bookings (promo_code_id);
 
 CREATE TABLE tickets (
   id BIGINT UNSIGNED PRIMARY KEY AUTO_INCREMENT,
@@ -296,6 +303,25 @@ CREATE TABLE tickets (
   UNIQUE KEY uq_showtime_seat (showtime_id, seat_id)
 ) ENGINE=InnoDB;
 
+-- Order-number node ids leased by running backend instances; last_ms is the newest
+-- number time issued under the id, so a later owner starts after it
+CREATE TABLE id_node_leases (
+  node_id SMALLINT UNSIGNED PRIMARY KEY,
+  owner VARCHAR(64) NOT NULL,
+  expires_at DATETIME NOT NULL,
+  last_ms BIGINT NOT NULL DEFAULT 0
+) ENGINE=InnoDB;
+
+-- Seat counts per showtime, checkpointed from the in-memory occupancy counters
+CREATE TABLE showtime_occupancy (
+  showtime_id BIGINT UNSIGNED PRIMARY KEY,
+  capacity INT UNSIGNED NOT NULL,
+  sold INT UNSIGNED NOT NULL DEFAULT 0,
+  held INT UNSIGNED NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  FOREIGN KEY (showtime_id) REFERENCES showtimes(id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
 CREATE TABLE payments (
   id BIGINT UNSIGNED PRIMARY KEY AUTO_INCREMENT,
   booking_id BIGINT UNSIGNED NOT NULL UNIQUE,
@@ -331,6 +357,18 @@ CREATE TABLE promotion_codes (
   FOREIGN KEY (promotion_id) REFERENCES promotions(id) ON DELETE CASCADE
 ) ENGINE=InnoDB;
 
+-- Redemption budget each running backend instance has taken from promotion_codes.redeemed_count
+-- and not yet turned into bookings; rows of an instance stop counting once expires_at passes
+CREATE TABLE promo_code_leases (
+  owner VARCHAR(64) NOT NULL,
+  code_id BIGINT UNSIGNED NOT NULL,
+  held INT UNSIGNED NOT NULL,
+  expires_at DATETIME NOT NULL,
+  PRIMARY KEY (owner, code_id),
+  KEY idx_promo_code_leases_code (code_id, expires_at),
+  FOREIGN KEY (code_id) REFERENCES promotion_codes(id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
 -- ------------------------------------------------------------
 -- Views & Indexes for UX
 -- ------------------------------------------------------------
@@ -352,6 +390,8 @@ GROUP BY m.id, m.title, m.mpaa_rating;
 CREATE INDEX idx_showtimes_movie_time ON showtimes (movie_id, starts_at);
 CREATE INDEX idx_bookings_user_created ON bookings (user_id, created_at);
 CREATE INDEX idx_tickets_showtime ON tickets (showtime_id);
+-- Hold expiry: startup purge of lapsed locks is a range delete
+CREATE INDEX idx_seat_locks_expires ON seat_locks (expires_at);
 
 SET sql_notes = 1;
 -- ============================  END  ============================
@@ -38,6 +38,9 @@ export default function ShowList({ movies = [] }) {
               {m.shows.map((s) => (
                 <div key={s.id} style={{ display: 'flex', gap: 8, alignItems: 'center' }}>
                   <div style={{ color: '#cbd5da', fontSize: 13 }}>{s.startTime ? new Date(s.startTime).toLocaleString() : (s.time || 'TBD')}</div>
+                  {s.remainingSeats != null ? (
+                    <div style={{ color: '#8a969c', fontSize: 12 }}>{s.auditorium ? `${s.auditorium} · ` : ''}{s.remainingSeats} left</div>
+                  ) : null}
                   <button onClick={() => openShow(s.id)} style={{ background: '#7a1f1f', color: '#fff', border: 'none', padding: '6px 10px', borderRadius: 6 }}>Book</button>
                 </div>
               ))}
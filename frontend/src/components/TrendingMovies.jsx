@@ -7,10 +7,10 @@ export default function TrendingMovies({ limit = 3 }) {
   const [loading, setLoading] = useState(true);
 
   useEffect(() => {
-    api.get(`/movies?page=0&size=${limit}`)
+    // precomputed now-playing shelf, no query behind it
+    api.get(`/movies/now-playing?limit=${limit}`)
       .then(res => {
-        const content = res.data && res.data.content ? res.data.content : res.data;
-        setMovies(content || []);
+        setMovies((res.data && res.data.movies) || []);
       })
       .catch(err => {
         console.error("failed to fetch trending movies", err);
@@ -62,16 +62,36 @@ export default function SeatSelection() {
   }, [showId]);
 
   useEffect(() => {
-    // Optionally poll seat map every 15s to keep availability fresh
-    if (useDemo) return; // skip polling when demo mode is active
+    if (useDemo) return; // no live updates for the demo seatmap
+    // Live seat changes pushed by the server; statuses keyed by seat id
+    const applyStatuses = (changes, resetOthers) => {
+      setSeats((current) => current.map((seat) => {
+        const status = changes[seat.id];
+        if (status) return status === seat.status ? seat : { ...seat, status };
+        return resetOthers && seat.status !== 'available' ? { ...seat, status: 'available' } : seat;
+      }));
+    };
+    let source = null;
+    if (typeof EventSource !== 'undefined') {
+      source = new EventSource(bookingApi.seatStreamUrl(showId));
+      // snapshot lists every seat that is not available
+      source.addEventListener('snapshot', (e) => applyStatuses(JSON.parse(e.data).seats || {}, true));
+      source.addEventListener('seats', (e) => applyStatuses(JSON.parse(e.data).seats || {}, false));
+    }
+
+    // Fall back to polling the seat map every 15s while the stream is down
     pollRef.current = setInterval(() => {
+      if (source && source.readyState === 1) return;
       bookingApi.getSeatMap(showId).then((res) => {
         const payload = res && res.data ? (Array.isArray(res.data) ? res.data : (res.data.seats || res.data.content || res.data)) : [];
         if (payload && payload.length > 0) setSeats(payload || []);
       }).catch(() => {});
     }, 15000);
-    return () => clearInterval(pollRef.current);
-  }, [showId]);
+    return () => {
+      clearInterval(pollRef.current);
+      if (source) source.close();
+    };
+  }, [showId, useDemo]);
 
   const subtotal = useMemo(() => selectedSeats.reduce((s, x) => s + (x.price || 0), 0), [selectedSeats]);
 
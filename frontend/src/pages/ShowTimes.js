@@ -1,6 +1,7 @@
 import React, { useEffect, useRef, useState, useMemo } from 'react';
 import { useParams, useNavigate } from 'react-router-dom';
 import bookingApi from '../services/bookingApi.js';
+import api from '../services/api';
 import ShowList from '../components/ShowList.jsx';
 import { useSearch } from '../context/SearchContext.js';
 
@@ -13,7 +14,6 @@ export default function ShowTimes() {
   const fetchId = useRef(0);
 
   useEffect(() => {
-    // Demo-only mode: don't call backend, always show local demo movies/shows
     setLoading(true);
     setError(null);
     if (movieId) {
@@ -24,7 +24,18 @@ export default function ShowTimes() {
         synopsis: 'Demo synopsis',
         shows: generateDemoShows(demoId),
       };
-      setMovies([singleDemo]);
+      // real schedule when the backend has one, demo shows otherwise
+      let cancelled = false;
+      Promise.all([bookingApi.getShowsForMovie(movieId), api.get(`/movies/${movieId}`)])
+        .then(([showsRes, movieRes]) => {
+          if (cancelled) return;
+          const shows = (showsRes && showsRes.data && showsRes.data.shows) || [];
+          const movie = movieRes && movieRes.data && movieRes.data.ok ? movieRes.data.movie : null;
+          setMovies(shows.length > 0 ? [{ ...(movie || { id: movieId, title: `Movie ${movieId}` }), shows }] : [singleDemo]);
+        })
+        .catch(() => !cancelled && setMovies([singleDemo]))
+        .finally(() => !cancelled && setLoading(false));
+      return () => { cancelled = true; };
     } else {
       const demoMovies = [1, 2].map((n) => ({
         id: `demo-${n}`,
@@ -8,6 +8,20 @@ const bookingApi = {
     const params = args[0] || undefined;
     return api.get('/movies', params ? { params } : undefined);
   },
+  getMoviesByIds(ids) {
+    // one request for many movies; resolves to { movies: { [id]: movie }, missing: [...] }
+    return api.get('/movies/batch', { params: { ids: ids.join(',') } });
+  },
+  suggestMovies(q, limit = 8) {
+    // in-memory type-ahead (movie titles and people), cheap enough to call per keystroke
+    return api.get('/movies/suggest', { params: { q, limit } });
+  },
+  getNowPlaying(limit = 12) {
+    return api.get('/movies/now-playing', { params: { limit } });
+  },
+  getComingSoon(limit = 12) {
+    return api.get('/movies/coming-soon', { params: { limit } });
+  },
   getShowsForMovie(movieId) {
     // Primary: try to fetch shows for a movie.
     // If backend returns an empty payload (no shows yet) or the request fails,
@@ -24,18 +38,27 @@ const bookingApi = {
     const params = args[1] || undefined;
     return api.get(`/shows/${showId}/seats`, params ? { params } : undefined);
   },
+  seatStreamUrl(showId) {
+    // EventSource can't go through axios; same base URL
+    return `${api.defaults.baseURL}/shows/${showId}/seats/stream`;
+  },
   reserveSeats(showId, body) {
     return api.post(`/shows/${showId}/reserve`, body);
   },
-  createOrder(body) {
-    return api.post('/orders', body);
+  createOrder(body, idempotencyKey) {
+    // reuse the same key when retrying so the server replays instead of booking twice
+    return api.post('/orders', body, idempotencyKey ? { headers: { 'Idempotency-Key': idempotencyKey } } : undefined);
   },
-  confirmOrder(orderId) {
-    return api.post(`/orders/${orderId}/confirm`);
+  confirmOrder(orderId, idempotencyKey) {
+    return api.post(`/orders/${orderId}/confirm`, null,
+      idempotencyKey ? { headers: { 'Idempotency-Key': idempotencyKey } } : undefined);
   },
   getOrder(orderId) {
     return api.get(`/orders/${orderId}`);
   },
+  validatePromo(code, subtotalCents) {
+    return api.get('/promotions/validate', { params: { code, subtotalCents } });
+  },
 };
 
 export default bookingApi;
\ No newline at end of file